@@ -0,0 +1,583 @@
+/*
+ * PicKing, a file picker.
+ * Copyright (C) 2009  Wei-Cheng Pan <legnaleurc@gmail.com>
+ *
+ * This file is part of PicKing.
+ *
+ * PicKing is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PicKing is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.foolproofproject;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map.Entry;
+
+/**
+ * <p>Packs all given objects into as few packs as possible.</p>
+ * <p>Unlike {@link Pack#pick}, which fills only one pack, this plans every
+ * pack at once. It starts with best-fit decreasing, then improves the plan
+ * by moving the slack into the emptiest pack, so that it may vanish.</p>
+ * <p>For the provably minimum amount of packs, use {@link #binCompletion}.</p>
+ * <p>Objects larger than the limit are ignored.</p>
+ *
+ * @author Wei-Cheng Pan
+ */
+public class BinPacking {
+
+	/**
+	 * A pack which is being built.
+	 */
+	private static class Bin< T > {
+
+		private long score_;
+		private ArrayList< T > items_;
+
+		public Bin() {
+			this.score_ = 0L;
+			this.items_ = new ArrayList< T >();
+		}
+
+		public void add( T item, long value ) {
+			this.items_.add( item );
+			this.score_ += value;
+		}
+
+	}
+
+	/**
+	 * Exact bin packing by Korf's bin completion.
+	 * The largest remaining object opens a new pack, and the branches are
+	 * the maximal sets of remaining objects which complete that pack.
+	 * Branches are cut by the Martello-Toth L2 lower bound.
+	 */
+	private static class BinCompletion< T > {
+
+		private long limit_;
+		private ArrayList< T > keys_;
+		/// Values in descending order.
+		private long[] values_;
+		private boolean[] used_;
+		/// Pack index of each object in the best plan.
+		private int[] best_;
+		private int bestSize_;
+		private int[] current_;
+		private long lowerBound_;
+		private boolean timed_;
+		private long deadline_;
+		private long budget_;
+		private long nodes_;
+		/// Set once the budget or the timeout is exceeded.
+		private boolean expired_;
+		private boolean perfect_;
+
+		/**
+		 * @param timed true if the deadline applies
+		 * @param deadline deadline by {@link System#nanoTime()}
+		 * @param budget maximum nodes, or 0 if unlimited
+		 */
+		public BinCompletion( long limit, AbstractMap< T, Long > items, boolean timed, long deadline, long budget ) {
+			this.limit_ = limit;
+			ArrayList< Entry< T, Long > > tmp = BinPacking.sort( limit, items );
+			this.keys_ = new ArrayList< T >( tmp.size() );
+			this.values_ = new long[tmp.size()];
+			for( int i = 0; i < tmp.size(); ++i ) {
+				this.keys_.add( tmp.get( i ).getKey() );
+				this.values_[i] = tmp.get( i ).getValue();
+			}
+			this.used_ = new boolean[this.values_.length];
+			this.current_ = new int[this.values_.length];
+			this.best_ = new int[this.values_.length];
+			this.timed_ = timed;
+			this.deadline_ = deadline;
+			this.budget_ = budget;
+			this.nodes_ = 0L;
+			this.expired_ = false;
+		}
+
+		/**
+		 * Start from a heuristic plan, and search for a better one until it
+		 * meets the lower bound or the budget is exceeded.
+		 */
+		public List< Pack< T > > call( ArrayList< Bin< T > > initial ) {
+			HashMap< T, Integer > index = new HashMap< T, Integer >();
+			for( int i = 0; i < this.keys_.size(); ++i ) {
+				index.put( this.keys_.get( i ), i );
+			}
+			for( int b = 0; b < initial.size(); ++b ) {
+				for( T item : initial.get( b ).items_ ) {
+					this.best_[index.get( item )] = b;
+				}
+			}
+			this.bestSize_ = initial.size();
+			this.lowerBound_ = BinPacking.lowerBound( this.limit_, this.values_, this.used_ );
+
+			if( this.bestSize_ > this.lowerBound_ ) {
+				// if the budget is exceeded, keep the best plan so far
+				this.search( 0 );
+			}
+
+			ArrayList< Bin< T > > bins = new ArrayList< Bin< T > >();
+			for( int b = 0; b < this.bestSize_; ++b ) {
+				bins.add( new Bin< T >() );
+			}
+			for( int i = 0; i < this.values_.length; ++i ) {
+				bins.get( this.best_[i] ).add( this.keys_.get( i ), this.values_[i] );
+			}
+			return BinPacking.toPacks( bins );
+		}
+
+		/**
+		 * @param bins amount of packs which are already completed
+		 * @return true if the lower bound is reached or the search expired.
+		 */
+		private boolean search( int bins ) {
+			int first = 0;
+			while( first < this.values_.length && this.used_[first] ) {
+				++first;
+			}
+			if( first == this.values_.length ) {
+				this.bestSize_ = bins;
+				System.arraycopy( this.current_, 0, this.best_, 0, this.current_.length );
+				return bins <= this.lowerBound_;
+			}
+			if( bins + BinPacking.lowerBound( this.limit_, this.values_, this.used_ ) >= this.bestSize_ ) {
+				return false;
+			}
+
+			this.used_[first] = true;
+			this.current_[first] = bins;
+			ArrayList< int[] > completions = new ArrayList< int[] >();
+			this.perfect_ = false;
+			this.complete( first + 1, this.limit_ - this.values_[first], new int[this.values_.length], 0, Long.MAX_VALUE, completions );
+			if( this.expired_ ) {
+				this.used_[first] = false;
+				return true;
+			}
+			Collections.sort( completions, new Comparator< int[] >() {
+				@Override
+				public int compare( int[] l, int[] r ) {
+					return Long.compare( BinCompletion.this.sum( r ), BinCompletion.this.sum( l ) );
+				}
+			} );
+
+			boolean done = false;
+			for( int k = 0; k < completions.size() && !done; ++k ) {
+				int[] completion = completions.get( k );
+				for( int i = 1; i <= completion[0]; ++i ) {
+					this.used_[completion[i]] = true;
+					this.current_[completion[i]] = bins;
+				}
+				done = this.search( bins + 1 );
+				for( int i = 1; i <= completion[0]; ++i ) {
+					this.used_[completion[i]] = false;
+				}
+			}
+			this.used_[first] = false;
+			return done;
+		}
+
+		/**
+		 * Collect maximal sets of unused objects which fit in residual. Of
+		 * objects with equal value, only a prefix is taken, so every multiset
+		 * is generated once. Once a perfect fit is found, it is the only one
+		 * kept, as it dominates everything else.
+		 *
+		 * @param i next object to decide
+		 * @param residual space left
+		 * @param set chosen objects
+		 * @param size size of set
+		 * @param excluded smallest value which has been left out
+		 * @param completions completions, each is its size followed by indexes
+		 */
+		private void complete( int i, long residual, int[] set, int size, long excluded, ArrayList< int[] > completions ) {
+			if( this.perfect_ || this.expired_ ) {
+				return;
+			}
+			if( ++this.nodes_ % 256 == 0 && this.isExpired() ) {
+				this.expired_ = true;
+				return;
+			}
+			while( i < this.values_.length && ( this.used_[i] || this.values_[i] > residual ) ) {
+				++i;
+			}
+			if( i == this.values_.length ) {
+				if( excluded <= residual ) {
+					return;
+				}
+				int[] completion = new int[size + 1];
+				completion[0] = size;
+				System.arraycopy( set, 0, completion, 1, size );
+				if( residual == 0L ) {
+					this.perfect_ = true;
+					completions.clear();
+				}
+				completions.add( completion );
+				return;
+			}
+
+			set[size] = i;
+			this.complete( i + 1, residual - this.values_[i], set, size + 1, excluded, completions );
+			// leave out the rest of equal values too
+			int j = i + 1;
+			while( j < this.values_.length && ( this.used_[j] || this.values_[j] == this.values_[i] ) ) {
+				++j;
+			}
+			this.complete( j, residual, set, size, this.values_[i], completions );
+		}
+
+		private boolean isExpired() {
+			return ( this.budget_ > 0L && this.nodes_ > this.budget_ ) || ( this.timed_ && System.nanoTime() - this.deadline_ >= 0L );
+		}
+
+		private long sum( int[] completion ) {
+			long sum = 0L;
+			for( int i = 1; i <= completion[0]; ++i ) {
+				sum += this.values_[completion[i]];
+			}
+			return sum;
+		}
+
+	}
+
+	/**
+	 * Martello-Toth L2 lower bound of the amount of packs.
+	 * For each k, objects larger than half the limit need a pack each, and
+	 * the objects between k and half the limit must fill the space left in
+	 * those packs before opening new ones.
+	 *
+	 * @param limit maximum value of each pack
+	 * @param values values in descending order
+	 * @param used objects to ignore, or null
+	 * @return lower bound
+	 */
+	static long lowerBound( long limit, long[] values, boolean[] used ) {
+		int m = 0;
+		long[] prefix = new long[values.length + 1];
+		long[] u = new long[values.length];
+		for( int i = 0; i < values.length; ++i ) {
+			if( used == null || !used[i] ) {
+				u[m] = values[i];
+				prefix[m + 1] = prefix[m] + values[i];
+				++m;
+			}
+		}
+
+		// h: amount of values larger than half
+		int h = 0;
+		while( h < m && u[h] * 2 > limit ) {
+			++h;
+		}
+		long best = 0L;
+		// a: amount of values larger than limit - k
+		// b: amount of values not less than k
+		int a = 0;
+		int b = m;
+		for( int next = m; ; ) {
+			final long k = ( next == m ) ? 0L : u[next];
+			while( a < h && u[a] > limit - k ) {
+				++a;
+			}
+			while( b > h && u[b - 1] < k ) {
+				--b;
+			}
+			final long spare = ( h - a ) * limit - ( prefix[h] - prefix[a] );
+			final long rest = ( prefix[b] - prefix[h] ) - spare;
+			best = Math.max( best, h + ( ( rest > 0L ) ? ( rest + limit - 1 ) / limit : 0L ) );
+
+			// next distinct value not larger than half
+			do {
+				--next;
+			} while( next >= h && next + 1 < m && u[next] == u[next + 1] );
+			if( next < h ) {
+				break;
+			}
+		}
+		return best;
+	}
+
+	/// Time of planning if options have no timeout, in milliseconds.
+	public static final long PLAN_MILLIS = 10000L;
+
+	/**
+	 * Plan by best-fit decreasing.
+	 * Every object goes to the fullest pack which can hold it.
+	 *
+	 * @param limit maximum value of each pack
+	 * @param items object value table
+	 * @return packs, fullest first
+	 */
+	public static< T > List< Pack< T > > bestFitDecreasing( long limit, AbstractMap< T, Long > items ) {
+		return BinPacking.toPacks( BinPacking.fitDecreasing( limit, items, true ) );
+	}
+
+	/**
+	 * Plan by first-fit decreasing.
+	 * Every object goes to the first pack which can hold it.
+	 *
+	 * @param limit maximum value of each pack
+	 * @param items object value table
+	 * @return packs, fullest first
+	 */
+	public static< T > List< Pack< T > > firstFitDecreasing( long limit, AbstractMap< T, Long > items ) {
+		return BinPacking.toPacks( BinPacking.fitDecreasing( limit, items, false ) );
+	}
+
+	/**
+	 * Plan by best-fit decreasing, then improve by moving the slack into the
+	 * emptiest pack.
+	 *
+	 * @param limit maximum value of each pack
+	 * @param items object value table
+	 * @return packs, fullest first
+	 */
+	public static< T > List< Pack< T > > plan( long limit, AbstractMap< T, Long > items ) {
+		return BinPacking.plan( limit, items, new SolveOptions< T >() );
+	}
+
+	/**
+	 * Plan by best-fit decreasing, then improve by moving the slack into the
+	 * emptiest pack.
+	 * The timeout and the budget bound the whole planning, and are shared by
+	 * the refills. Without a timeout, planning takes at most
+	 * {@link #PLAN_MILLIS}.
+	 *
+	 * @param limit maximum value of each pack
+	 * @param items object value table
+	 * @param options timeout and budget of the whole planning, seed and storage
+	 * of each refill, see {@link Pack#pick(Long, AbstractMap, SolveOptions)}
+	 * @return packs, fullest first
+	 */
+	public static< T > List< Pack< T > > plan( long limit, AbstractMap< T, Long > items, SolveOptions< T > options ) {
+		final long timeout = ( options.getTimeout() > 0L ) ? options.getTimeout() : BinPacking.PLAN_MILLIS;
+		ArrayList< Bin< T > > bins = BinPacking.fitDecreasing( limit, items, true );
+		BinPacking.improve( limit, items, bins, options, System.nanoTime() + timeout * 1000000L, options.getBudget() );
+		return BinPacking.toPacks( bins );
+	}
+
+	/**
+	 * Plan the minimum amount of packs by bin completion.
+	 * It starts from the plan of {@link #plan(long, AbstractMap)}, and stops
+	 * once the plan meets the L2 lower bound. If the timeout or the budget of
+	 * options is exceeded, the best plan found so far is returned. Both cover
+	 * the starting plan and the search together.
+	 *
+	 * @param limit maximum value of each pack
+	 * @param items object value table
+	 * @param options timeout and budget, the budget counts searched nodes and
+	 * steps of the starting plan
+	 * @return packs, fullest first
+	 */
+	public static< T > List< Pack< T > > binCompletion( long limit, AbstractMap< T, Long > items, SolveOptions< T > options ) {
+		final boolean timed = options.getTimeout() > 0L;
+		final long deadline = System.nanoTime() + ( timed ? options.getTimeout() : BinPacking.PLAN_MILLIS ) * 1000000L;
+		ArrayList< Bin< T > > bins = BinPacking.fitDecreasing( limit, items, true );
+		final long spent = BinPacking.improve( limit, items, bins, options, deadline, options.getBudget() );
+		// the search gets what the warm start left, a budget of 0 is unlimited
+		final long budget = ( options.getBudget() > 0L ) ? Math.max( options.getBudget() - spent, 1L ) : 0L;
+		return new BinCompletion< T >( limit, items, timed, deadline, budget ).call( bins );
+	}
+
+	private static< T > ArrayList< Bin< T > > fitDecreasing( long limit, AbstractMap< T, Long > items, boolean best ) {
+		ArrayList< Bin< T > > bins = new ArrayList< Bin< T > >();
+		for( Entry< T, Long > e : BinPacking.sort( limit, items ) ) {
+			final long value = e.getValue();
+			Bin< T > target = null;
+			for( Bin< T > bin : bins ) {
+				if( bin.score_ + value > limit ) {
+					continue;
+				}
+				if( target == null || bin.score_ > target.score_ ) {
+					target = bin;
+				}
+				if( !best ) {
+					break;
+				}
+			}
+			if( target == null ) {
+				target = new Bin< T >();
+				bins.add( target );
+			}
+			target.add( e.getKey(), value );
+		}
+		return bins;
+	}
+
+	/**
+	 * Improve a plan in rounds until the deadline or the budget is exceeded.
+	 * A round first tries to spread the emptiest pack into the others. Then it
+	 * refills every pack, fullest first, from itself and the next emptier
+	 * one, so the slack flows down to the emptiest pack, which may vanish. A
+	 * round takes one pick per pack, and rounds stop once one neither removes
+	 * a pack nor lowers the slack of all packs but the emptiest.
+	 *
+	 * @param options seed and storage of each pick
+	 * @param deadline deadline of all rounds, by {@link System#nanoTime()}
+	 * @param budget steps of all picks, or 0 if unlimited
+	 * @return steps given to picks.
+	 */
+	private static< T > long improve( long limit, AbstractMap< T, Long > items, ArrayList< Bin< T > > bins, SolveOptions< T > options, long deadline, long budget ) {
+		// no plan takes fewer packs than the total value needs
+		long total = 0L;
+		for( Bin< T > bin : bins ) {
+			total += bin.score_;
+		}
+		final long least = ( total + limit - 1L ) / limit;
+
+		long spent = 0L;
+		long slack = Long.MAX_VALUE;
+		while( bins.size() > least ) {
+			final int size = bins.size();
+			Collections.sort( bins, new Comparator< Bin< T > >() {
+				@Override
+				public int compare( Bin< T > l, Bin< T > r ) {
+					return Long.compare( l.score_, r.score_ );
+				}
+			} );
+			if( BinPacking.spread( limit, items, bins ) ) {
+				continue;
+			}
+
+			for( int j = bins.size() - 1; j > 0; --j ) {
+				final long left = deadline - System.nanoTime();
+				if( left <= 0L || ( budget > 0L && spent >= budget ) ) {
+					return spent;
+				}
+				Bin< T > emptier = bins.get( j - 1 );
+				Bin< T > bin = bins.get( j );
+				if( bin.score_ == limit ) {
+					continue;
+				}
+				HashMap< T, Long > union = new HashMap< T, Long >();
+				for( T item : emptier.items_ ) {
+					union.put( item, items.get( item ) );
+				}
+				for( T item : bin.items_ ) {
+					union.put( item, items.get( item ) );
+				}
+				// the rest of time and budget is shared by the rest of refills
+				SolveOptions< T > each = new SolveOptions< T >();
+				each.setSeed( options.getSeed() );
+				each.setStorage( options.getStorage() );
+				each.setTableMemory( options.getTableMemory() );
+				each.setTimeout( Math.max( left / 1000000L / j, 1L ) );
+				if( budget > 0L ) {
+					each.setBudget( Math.max( ( budget - spent ) / j, 1L ) );
+					spent += each.getBudget();
+				}
+				Pack< T > full = Pack.pick( limit, union, each );
+				if( full.getScore() > limit || full.getScore() <= bin.score_ ) {
+					continue;
+				}
+
+				Bin< T > fuller = new Bin< T >();
+				for( T item : full.getItems() ) {
+					fuller.add( item, union.remove( item ) );
+				}
+				emptier = new Bin< T >();
+				for( Entry< T, Long > e : union.entrySet() ) {
+					emptier.add( e.getKey(), e.getValue() );
+				}
+				bins.set( j, fuller );
+				bins.set( j - 1, emptier );
+				if( emptier.items_.isEmpty() ) {
+					bins.remove( j - 1 );
+				}
+			}
+
+			long next = 0L;
+			long most = 0L;
+			for( Bin< T > bin : bins ) {
+				next += limit - bin.score_;
+				most = Math.max( most, limit - bin.score_ );
+			}
+			next -= most;
+			if( bins.size() == size && next >= slack ) {
+				break;
+			}
+			slack = next;
+		}
+		return spent;
+	}
+
+	/**
+	 * Move all objects of the emptiest pack into the others, if they fit.
+	 * Packs must be sorted by value in ascending order.
+	 *
+	 * @return true if the emptiest pack is removed.
+	 */
+	private static< T > boolean spread( long limit, AbstractMap< T, Long > items, ArrayList< Bin< T > > bins ) {
+		final Bin< T > victim = bins.get( 0 );
+		final long[] scores = new long[bins.size()];
+		final int[] targets = new int[victim.items_.size()];
+		for( int j = 1; j < scores.length; ++j ) {
+			scores[j] = bins.get( j ).score_;
+		}
+		for( int k = 0; k < targets.length; ++k ) {
+			final long value = items.get( victim.items_.get( k ) );
+			targets[k] = -1;
+			for( int j = 1; j < scores.length; ++j ) {
+				if( scores[j] + value <= limit && ( targets[k] < 0 || scores[j] > scores[targets[k]] ) ) {
+					targets[k] = j;
+				}
+			}
+			if( targets[k] < 0 ) {
+				return false;
+			}
+			scores[targets[k]] += value;
+		}
+		for( int k = 0; k < targets.length; ++k ) {
+			T item = victim.items_.get( k );
+			bins.get( targets[k] ).add( item, items.get( item ) );
+		}
+		bins.remove( 0 );
+		return true;
+	}
+
+	/**
+	 * Sort objects by value in descending order, without those larger than
+	 * the limit.
+	 */
+	private static< T > ArrayList< Entry< T, Long > > sort( long limit, AbstractMap< T, Long > items ) {
+		ArrayList< Entry< T, Long > > tmp = new ArrayList< Entry< T, Long > >();
+		for( Entry< T, Long > e : items.entrySet() ) {
+			if( e.getValue() <= limit ) {
+				tmp.add( e );
+			}
+		}
+		Collections.sort( tmp, new Comparator< Entry< T, Long > >() {
+			@Override
+			public int compare( Entry< T, Long > r, Entry< T, Long > l ) {
+				return l.getValue().compareTo( r.getValue() );
+			}
+		} );
+		return tmp;
+	}
+
+	private static< T > List< Pack< T > > toPacks( ArrayList< Bin< T > > bins ) {
+		ArrayList< Pack< T > > packs = new ArrayList< Pack< T > >( bins.size() );
+		for( Bin< T > bin : bins ) {
+			packs.add( new Pack< T >( bin.score_, bin.items_ ) );
+		}
+		Collections.sort( packs, Collections.reverseOrder() );
+		return packs;
+	}
+
+	private BinPacking() {
+	}
+
+}
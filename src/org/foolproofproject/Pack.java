@@ -19,13 +19,37 @@
  */
 package org.foolproofproject;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
 import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map.Entry;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * <p>Calculates the maximum combination of given objects table.</p>
@@ -33,9 +57,18 @@ import java.util.Map.Entry;
  * to a <code>Hashtable&lt;T,Long&gt;</code> as a table. Then decide a
  * maximum score of combinations of objects.</p>
  * <p>Simply use {@link #pick} to perform algorithm.</p>
- * <p>If the amount of items is less then 16, then it will use brute force
- * (i.e. {@link #depthFirstSearch}) to find an optimal solution. Or
- * it will use heuristic algorithm (i.e. {@link #geneticAlgorithm}) to do it.</p>
+ * <p>It estimates the time and memory of meet-in-the-middle (i.e.
+ * {@link #meetInTheMiddle}), dynamic programming (i.e.
+ * {@link #dynamicProgramming}) and balanced dynamic programming (i.e.
+ * {@link #balancedDynamicProgramming}), and uses the cheapest one to find an
+ * optimal solution. If neither is cheap enough, it will use branch and bound (i.e.
+ * {@link #parallelSearch}) for a while, then heuristic algorithm (i.e.
+ * {@link #parallelGeneticAlgorithm}) to do it.</p>
+ * <p>Items of the same value are searched as groups, so a thousand files
+ * of the same size cost about ten items.</p>
+ * <p>Before searching, reduction rules drop items which never fit, stop at
+ * perfect fits of one or two items, and fix items which every better
+ * solution needs, so the exponential part only sees what is left.</p>
  *
  * @author Wei-Cheng Pan
  */
@@ -221,316 +254,3509 @@ public class Pack< T > implements Comparable< Pack< T > > {
 		}
 
 	}
-	private static class DepthFirstSearch< T > {
+	/**
+	 * Tracks the budget of one solving, and reports improved solutions.
+	 * For internal usage only.
+	 */
+	private static class Monitor< T > {
+
+		private boolean timed_;
+		private long deadline_;
+		private long budget_;
+		private SolveOptions.Listener< T > listener_;
+		private AtomicLong steps_;
+		private volatile boolean expired_;
+		private volatile boolean cancelled_;
+		private volatile long best_;
+		private volatile long stage_;
+		private Pack< T > base_;
+
+		public Monitor( SolveOptions< T > options ) {
+			this.timed_ = options.getTimeout() > 0L;
+			this.deadline_ = System.nanoTime() + options.getTimeout() * 1000000L;
+			this.budget_ = options.getBudget();
+			this.listener_ = options.getListener();
+			this.steps_ = new AtomicLong( 0L );
+			this.expired_ = false;
+			this.cancelled_ = false;
+			this.best_ = -1L;
+			this.stage_ = Long.MAX_VALUE;
+			this.base_ = new Pack< T >();
+		}
+
+		/**
+		 * Stop all solvers sharing this monitor, for good.
+		 */
+		public void cancel() {
+			this.cancelled_ = true;
+			this.expired_ = true;
+		}
+
+		/**
+		 * Stop after given steps, until {@link #endStage} is called.
+		 *
+		 * @param steps steps of this stage
+		 */
+		public void beginStage( long steps ) {
+			this.stage_ = this.steps_.get() + steps;
+		}
+
+		/**
+		 * Remove the limit of a stage, so solvers can run again unless the
+		 * budget or the deadline is exceeded.
+		 */
+		public void endStage() {
+			this.stage_ = Long.MAX_VALUE;
+			this.expired_ = false;
+			this.tick( 0L );
+		}
+
+		/**
+		 * Get the best reported score.
+		 *
+		 * @return Best score, or -1 if nothing is reported.
+		 */
+		public long getBest() {
+			return this.best_;
+		}
+
+		/**
+		 * Report a solution, the listener is called if it is an improvement.
+		 *
+		 * @param pack A solution
+		 */
+		public synchronized void improve( Pack< T > pack ) {
+			if( !this.isImprovement( pack.getScore() ) ) {
+				return;
+			}
+			ArrayList< T > items = new ArrayList< T >( this.base_.getItems() );
+			items.addAll( pack.getItems() );
+			this.best_ = this.base_.getScore() + pack.getScore();
+			this.listener_.improved( new Pack< T >( this.best_, items ) );
+		}
+
+		public boolean isExpired() {
+			return this.expired_;
+		}
+
+		public boolean isListening() {
+			return this.listener_ != null;
+		}
+
+		/**
+		 * Check if reporting is needed, so solvers can skip building packs.
+		 *
+		 * @param score Score of a solution
+		 * @return true if there is a listener and score is an improvement.
+		 */
+		public boolean isImprovement( long score ) {
+			return this.listener_ != null && this.base_.getScore() + score > this.best_;
+		}
+
+		/**
+		 * Expire at given time, unless the timeout of options is earlier.
+		 * It must be set before solvers start.
+		 *
+		 * @param deadline deadline by {@link System#nanoTime()}
+		 */
+		public void setDeadline( long deadline ) {
+			if( !this.timed_ || deadline - this.deadline_ < 0L ) {
+				this.timed_ = true;
+				this.deadline_ = deadline;
+			}
+		}
+
+		/**
+		 * Set items fixed by reduction, later solutions are reported along
+		 * with them.
+		 *
+		 * @param base fixed items
+		 */
+		public synchronized void setBase( Pack< T > base ) {
+			this.base_ = base;
+		}
+
+		/**
+		 * Count steps and check the budget.
+		 *
+		 * @param steps Steps done since last call
+		 * @return false if the budget or the deadline is exceeded.
+		 */
+		public boolean tick( long steps ) {
+			if( this.expired_ ) {
+				return false;
+			}
+			long total = this.steps_.addAndGet( steps );
+			if( this.cancelled_ || total > this.stage_ || ( this.budget_ > 0L && total > this.budget_ ) || ( this.timed_ && System.nanoTime() - this.deadline_ >= 0L ) ) {
+				this.expired_ = true;
+			}
+			return !this.expired_;
+		}
+
+	}
+
+	/**
+	 * Items sorted by value in descending order, kept in primitive arrays.
+	 * Items of the same value are grouped, and every group of
+	 * <code>c</code> items is split into entries of 1, 2, 4, ... items, so
+	 * any amount up to <code>c</code> is a subset of about
+	 * <code>log2(c)</code> entries. Algorithms only see the entries, and
+	 * {@link #extract} expands them back to items.
+	 * For internal usage only.
+	 */
+	private static class Table< T > {
 
 		private ArrayList< T > keys_;
-		private ArrayList< Long > values_;
-		private Long limit_;
+		private long[] sizes_;
+		private long sum_;
+		/// Entry values in descending order.
+		private long[] values_;
+		/// Items of entry i are keys_[from_[i], from_[i] + count_[i]).
+		private int[] from_;
+		private int[] count_;
 
-		public DepthFirstSearch( Long limit, AbstractMap< T, Long > items ) {
+		public Table( AbstractMap< T, Long > items ) {
 			ArrayList< Entry< T, Long > > tmp = new ArrayList< Entry< T, Long > >( items.entrySet() );
 			Collections.sort( tmp, new Comparator< Entry< T, Long > >() {
 				@Override
-				public int compare( Entry<T, Long> r, Entry<T, Long> l ) {
+				public int compare( Entry< T, Long > r, Entry< T, Long > l ) {
 					return l.getValue().compareTo( r.getValue() );
 				}
 			} );
 
-			this.keys_ = new ArrayList< T >();
-			this.values_ = new ArrayList< Long >();
-			for( Entry< T, Long > e : tmp ) {
-				this.keys_.add( e.getKey() );
-				this.values_.add( e.getValue() );
+			this.keys_ = new ArrayList< T >( tmp.size() );
+			this.sizes_ = new long[tmp.size()];
+			this.sum_ = 0L;
+			for( int i = 0; i < tmp.size(); ++i ) {
+				this.keys_.add( tmp.get( i ).getKey() );
+				this.sizes_[i] = tmp.get( i ).getValue();
+				this.sum_ += this.sizes_[i];
 			}
+			this.group();
+		}
 
-			this.limit_ = limit;
+		private Table( ArrayList< T > keys, long[] sizes, long sum ) {
+			this.keys_ = keys;
+			this.sizes_ = sizes;
+			this.sum_ = sum;
+			this.group();
 		}
 
-		public Pack< T > call( int n, Pack< T > p ) {
-			if( p.score_ > this.limit_) {
-				return new Pack< T >();
-			} else if( n == this.keys_.size() ) {
-				return p;
-			} else {
-				Pack< T > a = this.call( n + 1, p );
-				Pack< T > b = this.call( n + 1, p.add( this.keys_.get( n ) , this.values_.get( n ) ) );
-				if( a.compareTo( b ) > 0 ) {
-					return a;
+		/**
+		 * Build entries from runs of equal sizes.
+		 */
+		private void group() {
+			final int n = this.sizes_.length;
+			final long[] values = new long[n];
+			final int[] from = new int[n];
+			final int[] count = new int[n];
+			int size = 0;
+			for( int i = 0, j = 0; i < n; i = j ) {
+				while( j < n && this.sizes_[j] == this.sizes_[i] ) {
+					++j;
+				}
+				int begin = i;
+				for( int chunk = 1; begin < j; chunk <<= 1 ) {
+					chunk = Math.min( chunk, j - begin );
+					values[size] = this.sizes_[i] * chunk;
+					from[size] = begin;
+					count[size] = chunk;
+					++size;
+					begin += chunk;
+				}
+			}
+
+			// chunks of smaller items may outgrow single bigger items
+			Integer[] order = new Integer[size];
+			for( int i = 0; i < size; ++i ) {
+				order[i] = i;
+			}
+			Arrays.sort( order, new Comparator< Integer >() {
+				@Override
+				public int compare( Integer r, Integer l ) {
+					return Long.compare( values[l], values[r] );
+				}
+			} );
+			this.values_ = new long[size];
+			this.from_ = new int[size];
+			this.count_ = new int[size];
+			for( int i = 0; i < size; ++i ) {
+				this.values_[i] = values[order[i]];
+				this.from_[i] = from[order[i]];
+				this.count_[i] = count[order[i]];
+			}
+		}
+
+		/**
+		 * Remove items which are greater than limit, they never fit.
+		 *
+		 * @param limit maximum value of combinations
+		 */
+		public void dropAbove( long limit ) {
+			int from = 0;
+			while( from < this.sizes_.length && this.sizes_[from] > limit ) {
+				this.sum_ -= this.sizes_[from];
+				++from;
+			}
+			if( from > 0 ) {
+				this.keys_.subList( 0, from ).clear();
+				this.sizes_ = Arrays.copyOfRange( this.sizes_, from, this.sizes_.length );
+				this.group();
+			}
+		}
+
+		/**
+		 * Remove items by one compaction pass, the order is kept so nothing
+		 * needs to be sorted again.
+		 *
+		 * @param keys keys to remove, unknown keys are ignored
+		 */
+		public void remove( HashSet< T > keys ) {
+			int size = 0;
+			for( int i = 0; i < this.sizes_.length; ++i ) {
+				if( keys.contains( this.keys_.get( i ) ) ) {
+					this.sum_ -= this.sizes_[i];
 				} else {
-					return b;
+					this.keys_.set( size, this.keys_.get( i ) );
+					this.sizes_[size] = this.sizes_[i];
+					++size;
+				}
+			}
+			if( size < this.sizes_.length ) {
+				this.keys_.subList( size, this.keys_.size() ).clear();
+				this.sizes_ = Arrays.copyOf( this.sizes_, size );
+				this.group();
+			}
+		}
+
+		/**
+		 * Build a new table without given entries and items over limit.
+		 *
+		 * @param limit maximum value of combinations
+		 * @param removed removal flags, indexed as entries
+		 * @return Reduced table.
+		 */
+		public Table< T > reduce( long limit, boolean[] removed ) {
+			final boolean[] drop = new boolean[this.sizes_.length];
+			for( int i = 0; i < removed.length; ++i ) {
+				if( removed[i] ) {
+					Arrays.fill( drop, this.from_[i], this.from_[i] + this.count_[i], true );
+				}
+			}
+			ArrayList< T > keys = new ArrayList< T >();
+			long[] sizes = new long[this.sizes_.length];
+			long sum = 0L;
+			for( int i = 0; i < this.sizes_.length; ++i ) {
+				if( !drop[i] && this.sizes_[i] <= limit ) {
+					sizes[keys.size()] = this.sizes_[i];
+					keys.add( this.keys_.get( i ) );
+					sum += this.sizes_[i];
+				}
+			}
+			return new Table< T >( keys, Arrays.copyOf( sizes, keys.size() ), sum );
+		}
+
+		/**
+		 * Build a pack from selected entries.
+		 *
+		 * @param selected selection flags, indexed as entries
+		 * @return Pack of selected items.
+		 */
+		public Pack< T > extract( boolean[] selected ) {
+			ArrayList< T > items = new ArrayList< T >();
+			long score = 0L;
+			for( int i = 0; i < selected.length; ++i ) {
+				if( selected[i] ) {
+					items.addAll( this.keys_.subList( this.from_[i], this.from_[i] + this.count_[i] ) );
+					score += this.values_[i];
 				}
 			}
+			return new Pack< T >( score, items );
+		}
+
+		/**
+		 * Build a pack of all items.
+		 */
+		public Pack< T > extractAll() {
+			return new Pack< T >( this.sum_, new ArrayList< T >( this.keys_ ) );
+		}
+
+		public T getKey( int i ) {
+			return this.keys_.get( i );
+		}
+
+		public int getKeyCount() {
+			return this.keys_.size();
+		}
+
+		/**
+		 * Get item sizes.
+		 *
+		 * @return Sizes in descending order, parallel to keys.
+		 */
+		public long[] getSizes() {
+			return this.sizes_;
+		}
+
+		public long getSum() {
+			return this.sum_;
+		}
+
+		/**
+		 * Get entry values.
+		 *
+		 * @return Values in descending order.
+		 */
+		public long[] getValues() {
+			return this.values_;
+		}
+
+		/**
+		 * Get the amount of entries.
+		 */
+		public int size() {
+			return this.values_.length;
 		}
 
 	}
 
 	/**
-	 * Genetic algorithm.
+	 * Reduction rules applied before searching, in the manner of Martello
+	 * and Toth. Items over the limit are dropped, a greedy solution gives a
+	 * lower bound, a perfect fit of one or two entries ends the search, and
+	 * entries which every better solution needs are fixed. Rules are
+	 * repeated on the residual problem until nothing changes.
 	 * For internal usage only.
 	 */
-	private static class GeneticAlgorithm< T > {
+	private static class Reduction< T > {
+
+		private long limit_;
+		private Table< T > table_;
+		private Pack< T > fixed_;
+		private Pack< T > best_;
+		private boolean solved_;
+
+		public Reduction( Long limit, AbstractMap< T, Long > items, Monitor< T > monitor ) {
+			this( limit, new Table< T >( items ), monitor );
+		}
 
 		/**
-		 * A cell which represents a possible combination.
+		 * Reduce, the table is not modified.
+		 *
+		 * @param limit maximum value of combinations
+		 * @param table items
+		 * @param monitor gets the greedy solution, and the fixed items as base
+		 */
+		public Reduction( long limit, Table< T > table, Monitor< T > monitor ) {
+			this.limit_ = limit;
+			this.table_ = ( table.size() > 0 && table.getValues()[0] > limit ) ? table.reduce( limit, new boolean[table.size()] ) : table;
+			this.fixed_ = new Pack< T >();
+			this.best_ = new Pack< T >();
+			this.solved_ = false;
+			while( !this.solved_ && this.reduce() ) {
+				continue;
+			}
+			if( monitor.isImprovement( this.best_.getScore() ) ) {
+				monitor.improve( this.best_ );
+			}
+			monitor.setBase( this.fixed_ );
+		}
+
+		/**
+		 * Get the best solution.
+		 *
+		 * @param residual solution of the residual problem
+		 * @return residual with fixed items, or the greedy solution if it is
+		 * better.
 		 */
-		private static class Cell< T > implements Comparable< Cell< T > > {
+		public Pack< T > merge( Pack< T > residual ) {
+			Pack< T > full = Reduction.join( this.fixed_, residual );
+			return ( full.getScore() >= this.best_.getScore() ) ? full : this.best_;
+		}
 
-			/// Table of item selection.
-			private HashMap< T, Boolean > table_;
-			/// Total value
-			private Long value_;
+		/**
+		 * Get the solution found by reduction.
+		 *
+		 * @return Optimal solution if it is solved.
+		 */
+		public Pack< T > getBest() {
+			return this.best_;
+		}
 
-			/**
-			 * Copy constructor.
-			 *
-			 * @param that Copy source
-			 */
-			public Cell( Cell< T > that ) {
-				this.table_ = new HashMap< T, Boolean >( that.table_ );
-				this.value_ = that.value_;
+		/**
+		 * Get the residual limit.
+		 */
+		public long getLimit() {
+			return this.limit_;
+		}
+
+		/**
+		 * Get the residual items.
+		 */
+		public Table< T > getTable() {
+			return this.table_;
+		}
+
+		public boolean isSolved() {
+			return this.solved_;
+		}
+
+		private static< T > Pack< T > join( Pack< T > a, Pack< T > b ) {
+			ArrayList< T > items = new ArrayList< T >( a.getItems() );
+			items.addAll( b.getItems() );
+			return new Pack< T >( a.getScore() + b.getScore(), items );
+		}
+
+		private void finish( Pack< T > residual ) {
+			this.best_ = Reduction.join( this.fixed_, residual );
+			this.solved_ = true;
+		}
+
+		/**
+		 * Apply all rules once.
+		 *
+		 * @return true if the residual problem is changed.
+		 */
+		private boolean reduce() {
+			final long[] values = this.table_.getValues();
+			final int n = values.length;
+			if( this.table_.getSum() <= this.limit_ ) {
+				this.finish( this.table_.extractAll() );
+				return false;
 			}
-			/**
-			 * Constructor.
-			 *
-			 * @param table Item selection table
-			 * @param value Total value
-			 */
-			public Cell( HashMap< T, Boolean > table, Long value ) {
-				this.table_ = table;
-				this.value_ = value;
+
+			boolean[] selected = new boolean[n];
+			long greedy = 0L;
+			for( int i = 0; i < n; ++i ) {
+				if( greedy + values[i] <= this.limit_ ) {
+					selected[i] = true;
+					greedy += values[i];
+				}
 			}
-			/**
-			 * Check if can toggle.
-			 *
-			 * @param key Toggle target
-			 * @param value Value of target
-			 * @param limit Maximum limit
-			 * @return true if can toggle.
-			 */
-			public boolean canToggle( T key, Long value, Long limit ) {
-				return ( this.table_.get( key ) || this.value_ + value < limit );
+			if( this.fixed_.getScore() + greedy > this.best_.getScore() ) {
+				this.best_ = Reduction.join( this.fixed_, this.table_.extract( selected ) );
 			}
-			@Override
-			public int compareTo( Cell< T > rhs ) {
-				return rhs.value_.compareTo( this.value_ );
+			// also covers one entry which equals to the limit
+			if( greedy == this.limit_ ) {
+				this.solved_ = true;
+				return false;
 			}
-			/**
-			 * Get item selection table.
-			 *
-			 * @return Selection table.
-			 */
-			public HashMap< T, Boolean > getTable() {
-				return this.table_;
+
+			// values are descending, so a two-pointer scan finds a pair
+			for( int i = 0, j = n - 1; i < j; ) {
+				long sum = values[i] + values[j];
+				if( sum == this.limit_ ) {
+					selected = new boolean[n];
+					selected[i] = true;
+					selected[j] = true;
+					this.finish( this.table_.extract( selected ) );
+					return false;
+				} else if( sum > this.limit_ ) {
+					++i;
+				} else {
+					--j;
+				}
 			}
-			/**
-			 * Get total value.
-			 *
-			 * @return Total value.
-			 */
-			public Long getValue() {
-				return this.value_;
+
+			// without entry i, nothing can beat the best solution
+			final boolean[] fixed = new boolean[n];
+			long sum = 0L;
+			for( int i = 0; i < n && this.fixed_.getScore() + this.table_.getSum() - values[i] <= this.best_.getScore(); ++i ) {
+				fixed[i] = true;
+				sum += values[i];
 			}
-			/**
-			 * Toggle item selection.
-			 *
-			 * @param key Toggle target
-			 * @param value Value of target
-			 */
-			public void toggle( T key, Long value ) {
-				boolean tmp = this.table_.get( key );
-				this.table_.put( key, !tmp );
-				if( tmp ) {
-					this.value_ -= value;
-				} else {
-					this.value_ += value;
+			if( sum == 0L ) {
+				return false;
+			}
+			if( sum > this.limit_ ) {
+				// no better solution at all
+				this.solved_ = true;
+				return false;
+			}
+			this.fixed_ = Reduction.join( this.fixed_, this.table_.extract( fixed ) );
+			this.limit_ -= sum;
+			this.table_ = this.table_.reduce( this.limit_, fixed );
+			return true;
+		}
+
+	}
+
+	/**
+	 * Chooses an engine for a reduced problem.
+	 * The cost of an exact engine is its amount of basic steps, times the
+	 * measured time of one step, and its tables must fit in half of the free
+	 * memory. If no exact engine is cheap enough, branch and bound searches
+	 * with a node budget, and a heuristic algorithm continues if it does
+	 * not finish.
+	 * For internal usage only.
+	 */
+	private static class Planner {
+
+		public static final int MEET_IN_THE_MIDDLE = 0;
+		public static final int DYNAMIC_PROGRAMMING = 1;
+		public static final int BALANCED = 2;
+		public static final int SEARCH = 3;
+		/// Time allowed for exact engines if there is no timeout.
+		private static final long EXACT_NANOS = 10000000000L;
+		/// Nodes of branch and bound before falling back to heuristics.
+		public static final long SEARCH_NODES = 1L << 22;
+		/// Smaller runs are dominated by overhead, so they are not measured.
+		private static final long MEASURED_STEPS = 1L << 16;
+		/// Nanoseconds per step of exact engines, learned from every run.
+		private static final double[] cost_ = { 16.0, 1.0, 0.5 };
+
+		/**
+		 * Choose an engine.
+		 *
+		 * @param limit residual limit
+		 * @param table residual items
+		 * @param options timeout and storage
+		 * @return {@link #MEET_IN_THE_MIDDLE}, {@link #DYNAMIC_PROGRAMMING},
+		 * {@link #BALANCED} or {@link #SEARCH}.
+		 */
+		public static int choose( long limit, Table< ? > table, SolveOptions< ? > options ) {
+			final double allowed = Planner.getAllowedNanos( options );
+			final SolveOptions.Storage storage = Planner.getStorage( limit, table, options );
+
+			int engine = Planner.SEARCH;
+			double best = allowed;
+			for( int e = Planner.MEET_IN_THE_MIDDLE; e <= Planner.BALANCED; ++e ) {
+				final long steps = Planner.getSteps( e, limit, table, storage );
+				if( steps < 0L || Planner.getMemory( e, limit, table, storage ) > Planner.getFreeMemory() ) {
+					continue;
+				}
+				double time = Planner.getCost( e ) * steps;
+				if( time <= best ) {
+					best = time;
+					engine = e;
 				}
 			}
-			@Override
-			public String toString() {
-				return String.format( "(%d,%s)", this.value_, this.table_.keySet() );
+			return engine;
+		}
+
+		/**
+		 * Get the time allowed for exact engines.
+		 *
+		 * @return The timeout, or {@link #EXACT_NANOS} if there is none.
+		 */
+		public static double getAllowedNanos( SolveOptions< ? > options ) {
+			return ( options.getTimeout() > 0L ) ? options.getTimeout() * 1000000.0 : Planner.EXACT_NANOS;
+		}
+
+		/**
+		 * Get nanoseconds per step.
+		 */
+		public static synchronized double getCost( int engine ) {
+			return Planner.cost_[engine];
+		}
+
+		/**
+		 * Get bytes which tables may take, i.e. half of the free heap.
+		 */
+		public static long getFreeMemory() {
+			Runtime runtime = Runtime.getRuntime();
+			return ( runtime.maxMemory() - runtime.totalMemory() + runtime.freeMemory() ) / 2L;
+		}
+
+		/**
+		 * Get the storage of the parent table of dynamic programming.
+		 *
+		 * @return The storage in options, or {@link SolveOptions.Storage#NONE}
+		 * if the heap can not hold the table.
+		 */
+		public static SolveOptions.Storage getStorage( long limit, Table< ? > table, SolveOptions< ? > options ) {
+			final SolveOptions.Storage storage = options.getStorage();
+			if( storage != SolveOptions.Storage.HEAP || Planner.getMemory( Planner.DYNAMIC_PROGRAMMING, limit, table, storage ) <= Planner.getFreeMemory() ) {
+				return storage;
 			}
+			return SolveOptions.Storage.NONE;
+		}
+
+		/**
+		 * Get bytes of tables on the heap.
+		 */
+		public static long getMemory( int engine, long limit, Table< ? > table, SolveOptions.Storage storage ) {
+			if( engine == Planner.MEET_IN_THE_MIDDLE ) {
+				final int n = table.size();
+				// sums and masks of the lower half, three buffers of the upper
+				return 12L * ( ( 1L << ( n / 2 ) ) + 3L * ( 1L << ( n - n / 2 ) ) );
+			} else if( engine == Planner.BALANCED ) {
+				return 4L * BalancedDynamicProgramming.getCells( limit, table.getValues() );
+			} else {
+				final long capacity = DynamicProgramming.getCapacity( limit, table.getValues() );
+				switch( storage ) {
+				case HEAP:
+					return 4L * capacity + capacity / 8L;
+				case NONE:
+					// forward and backward bitsets while rebuilding
+					return capacity / 4L;
+				default:
+					return capacity / 8L;
+				}
+			}
+		}
+
+		/**
+		 * Get the amount of basic steps.
+		 *
+		 * @return Steps, or -1 if the engine can not solve it.
+		 */
+		public static long getSteps( int engine, long limit, Table< ? > table, SolveOptions.Storage storage ) {
+			final int n = table.size();
+			if( engine == Planner.MEET_IN_THE_MIDDLE ) {
+				// enumerated sums of both halves
+				return ( n - n / 2 > 30 ) ? -1L : ( 1L << ( n / 2 ) ) + ( 1L << ( n - n / 2 ) );
+			} else if( engine == Planner.BALANCED ) {
+				// table cells, each is copied and tried once
+				final long cells = BalancedDynamicProgramming.getCells( limit, table.getValues() );
+				return ( cells < 0L ) ? -1L : cells;
+			} else {
+				// words touched by shift-or, rebuilding touches at most twice
+				// as many words
+				final long capacity = DynamicProgramming.getCapacity( limit, table.getValues() );
+				final long steps = n * ( capacity / 64L + 1L );
+				if( capacity > Integer.MAX_VALUE - 64 ) {
+					return -1L;
+				}
+				return ( storage == SolveOptions.Storage.NONE ) ? 3L * steps : steps;
+			}
+		}
+
+		/**
+		 * Learn the time of one step from a finished run.
+		 *
+		 * @param engine exact engine
+		 * @param steps steps of the run
+		 * @param nanos elapsed time
+		 */
+		public static synchronized void record( int engine, long steps, long nanos ) {
+			if( steps < Planner.MEASURED_STEPS ) {
+				return;
+			}
+			Planner.cost_[engine] = 0.75 * Planner.cost_[engine] + 0.25 * nanos / steps;
+		}
+
+	}
+
+	/**
+	 * Parent table of dynamic programming, i.e. the item which reaches each
+	 * state first. Every state is written at most once, so the table may
+	 * live out of the heap without slowing down the bitset.
+	 * For internal usage only.
+	 */
+	private static abstract class Parents {
+
+		/**
+		 * Create a table.
+		 *
+		 * @param storage where the table lives
+		 * @param size amount of states
+		 * @return Table.
+		 * @throws UncheckedIOException if the temporary file can not be mapped
+		 */
+		public static Parents create( SolveOptions.Storage storage, int size ) {
+			switch( storage ) {
+			case DIRECT:
+				return new BufferParents( size, null );
+			case MAPPED:
+				try {
+					return new BufferParents( size, File.createTempFile( "picking", ".dp" ) );
+				} catch( IOException e ) {
+					throw new UncheckedIOException( e );
+				}
+			default:
+				return new HeapParents( size );
+			}
+		}
+
+		/**
+		 * Release the table. The table must not be used after that.
+		 */
+		public void close() {
+		}
+
+		public abstract int get( int state );
+
+		public abstract SolveOptions.Storage getStorage();
+
+		public abstract void set( int state, int item );
+
+		public abstract int size();
+
+	}
+
+	/**
+	 * Parent table on the heap.
+	 * For internal usage only.
+	 */
+	private static class HeapParents extends Parents {
+
+		private int[] parents_;
+
+		public HeapParents( int size ) {
+			this.parents_ = new int[size];
+		}
+
+		@Override
+		public int get( int state ) {
+			return this.parents_[state];
+		}
+
+		@Override
+		public SolveOptions.Storage getStorage() {
+			return SolveOptions.Storage.HEAP;
+		}
+
+		@Override
+		public void set( int state, int item ) {
+			this.parents_[state] = item;
+		}
+
+		@Override
+		public int size() {
+			return this.parents_.length;
+		}
+
+	}
+
+	/**
+	 * Parent table in direct or mapped buffers. A buffer holds at most 2^31
+	 * bytes, so the table is split into segments of 2^28 states.
+	 * For internal usage only.
+	 */
+	private static class BufferParents extends Parents {
+
+		private static final int SEGMENT_BITS = 28;
+		private static final int SEGMENT_MASK = ( 1 << BufferParents.SEGMENT_BITS ) - 1;
+
+		/**
+		 * Unmap or free a buffer now, instead of waiting for the garbage
+		 * collector. It needs internal APIs, which are reached by reflection,
+		 * and the buffer is left to the garbage collector without them.
+		 */
+		private static void free( ByteBuffer buffer ) {
+			try {
+				// Java 9 and later
+				Class< ? > type = Class.forName( "sun.misc.Unsafe" );
+				Field field = type.getDeclaredField( "theUnsafe" );
+				field.setAccessible( true );
+				type.getMethod( "invokeCleaner", ByteBuffer.class ).invoke( field.get( null ), buffer );
+			} catch( Exception e ) {
+				try {
+					// Java 8
+					Method method = buffer.getClass().getMethod( "cleaner" );
+					method.setAccessible( true );
+					Object cleaner = method.invoke( buffer );
+					if( cleaner != null ) {
+						cleaner.getClass().getMethod( "clean" ).invoke( cleaner );
+					}
+				} catch( Exception ex ) {
+					// left to the garbage collector
+				}
+			}
+		}
+
+		private ByteBuffer[] buffers_;
+		private IntBuffer[] segments_;
+		private File file_;
+		private int size_;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param size amount of states
+		 * @param file temporary file to map, or null for direct buffers
+		 * @throws UncheckedIOException if the file can not be mapped
+		 */
+		public BufferParents( int size, File file ) {
+			this.size_ = size;
+			this.file_ = file;
+			this.buffers_ = new ByteBuffer[( size >>> BufferParents.SEGMENT_BITS ) + 1];
+			this.segments_ = new IntBuffer[this.buffers_.length];
+			if( file == null ) {
+				for( int i = 0; i < this.segments_.length; ++i ) {
+					this.buffers_[i] = ByteBuffer.allocateDirect( 4 * this.getSegmentSize( i ) );
+					this.segments_[i] = this.buffers_[i].order( ByteOrder.nativeOrder() ).asIntBuffer();
+				}
+				return;
+			}
+
+			try {
+				RandomAccessFile raf = new RandomAccessFile( file, "rw" );
+				try {
+					FileChannel channel = raf.getChannel();
+					for( int i = 0; i < this.segments_.length; ++i ) {
+						long offset = 4L * ( ( long )i << BufferParents.SEGMENT_BITS );
+						this.buffers_[i] = channel.map( FileChannel.MapMode.READ_WRITE, offset, 4L * this.getSegmentSize( i ) );
+						this.segments_[i] = this.buffers_[i].order( ByteOrder.nativeOrder() ).asIntBuffer();
+					}
+				} finally {
+					// mappings stay valid after the channel is closed
+					raf.close();
+				}
+			} catch( IOException e ) {
+				this.close();
+				file.delete();
+				throw new UncheckedIOException( e );
+			}
+			// a mapped file can not be deleted on some platforms
+			if( !file.delete() ) {
+				file.deleteOnExit();
+			}
+		}
+
+		@Override
+		public void close() {
+			// nothing may touch the buffers after this
+			this.segments_ = null;
+			if( this.buffers_ != null ) {
+				for( ByteBuffer buffer : this.buffers_ ) {
+					if( buffer != null ) {
+						BufferParents.free( buffer );
+					}
+				}
+				this.buffers_ = null;
+			}
+			if( this.file_ != null && this.file_.exists() && !this.file_.delete() ) {
+				this.file_.deleteOnExit();
+			}
+		}
+
+		@Override
+		public int get( int state ) {
+			return this.segments_[state >>> BufferParents.SEGMENT_BITS].get( state & BufferParents.SEGMENT_MASK );
+		}
+
+		private int getSegmentSize( int segment ) {
+			return Math.min( this.size_ - ( segment << BufferParents.SEGMENT_BITS ), 1 << BufferParents.SEGMENT_BITS );
+		}
+
+		@Override
+		public SolveOptions.Storage getStorage() {
+			return ( this.file_ == null ) ? SolveOptions.Storage.DIRECT : SolveOptions.Storage.MAPPED;
+		}
+
+		@Override
+		public void set( int state, int item ) {
+			this.segments_[state >>> BufferParents.SEGMENT_BITS].put( state & BufferParents.SEGMENT_MASK, item );
+		}
+
+		@Override
+		public int size() {
+			return this.size_;
+		}
+
+	}
+
+	/**
+	 * Exact subset-sum by dynamic programming.
+	 * Reachable sums are kept in a bitset and every item is applied with a
+	 * word-parallel shift-or. All values are divided by their GCD first, so
+	 * the bitset has <code>limit / gcd</code> bits.
+	 * For internal usage only.
+	 */
+	private static class DynamicProgramming< T > {
+
+		/**
+		 * Get the amount of states needed to solve given items.
+		 *
+		 * @param limit maximum value of combinations
+		 * @param values item values
+		 * @return <code>limit / gcd</code>, or 0 if nothing can fit.
+		 */
+		public static long getCapacity( long limit, long[] values ) {
+			long unit = DynamicProgramming.getUnit( limit, values );
+			return ( unit == 0L ) ? 0L : limit / unit;
+		}
+
+		private static long getUnit( long limit, long[] values ) {
+			long unit = 0L;
+			for( long v : values ) {
+				if( v > 0L && v <= limit ) {
+					unit = Pack.gcd( unit, v );
+				}
+			}
+			return unit;
+		}
+
+		/**
+		 * Apply <code>bits |= bits &lt;&lt; shift</code> in place, and record
+		 * <code>item</code> as the parent of every newly reachable sum if
+		 * <code>parent</code> is not null. Without parents, it is done by
+		 * {@link ShiftOr}, which may use SIMD instructions.
+		 */
+		private static void shiftOr( long[] bits, int shift, int capacity, Parents parent, int item ) {
+			if( parent == null ) {
+				ShiftOr.get().apply( bits, shift, capacity );
+				return;
+			}
+			final int ws = shift >>> 6;
+			final int bs = shift & 63;
+			final int top = capacity >>> 6;
+			for( int k = top; k >= ws; --k ) {
+				long src = bits[k - ws] << bs;
+				if( bs != 0 && k - ws > 0 ) {
+					src |= bits[k - ws - 1] >>> ( 64 - bs );
+				}
+				long added = src & ~bits[k];
+				if( k == top ) {
+					added &= -1L >>> ( 63 - ( capacity & 63 ) );
+				}
+				if( added == 0L ) {
+					continue;
+				}
+				bits[k] |= added;
+				for( ; added != 0L; added &= added - 1L ) {
+					parent.set( ( k << 6 ) + Long.numberOfTrailingZeros( added ), item );
+				}
+			}
+		}
+
+		private long limit_;
+		private Table< T > table_;
+		private Monitor< T > monitor_;
+		private long unit_;
+		private long[] bits_;
+		private SolveOptions.Storage storage_;
+		private Parents parent_;
+		/// Amount of leading items applied to bits_.
+		private int applied_;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param limit Maximum limit
+		 * @param table Items
+		 * @param monitor Budget
+		 * @param storage Where the parent table lives
+		 * @param previous A finished solving whose buffers are reused, may be null
+		 */
+		public DynamicProgramming( long limit, Table< T > table, Monitor< T > monitor, SolveOptions.Storage storage, DynamicProgramming< T > previous ) {
+			this.limit_ = limit;
+			this.table_ = table;
+			this.monitor_ = monitor;
+			this.storage_ = storage;
+			if( previous != null ) {
+				// the buffers move to this solving, which releases them
+				this.bits_ = previous.bits_;
+				this.parent_ = previous.parent_;
+				previous.bits_ = null;
+				previous.parent_ = null;
+			}
+		}
+
+		/**
+		 * Release the parent table, e.g. its temporary file.
+		 */
+		public void close() {
+			if( this.parent_ != null ) {
+				this.parent_.close();
+				this.parent_ = null;
+			}
+		}
+
+		/**
+		 * Solve. If the budget is exceeded, only the items applied so far
+		 * are considered.
+		 */
+		public Pack< T > call() {
+			final long[] values = this.table_.getValues();
+			this.unit_ = DynamicProgramming.getUnit( this.limit_, values );
+			if( this.unit_ == 0L ) {
+				return this.extract( 0 );
+			}
+			if( this.limit_ / this.unit_ > Integer.MAX_VALUE - 64 ) {
+				throw new IllegalArgumentException( "Too many states: " + this.limit_ / this.unit_ );
+			}
+
+			final int capacity = ( int )( this.limit_ / this.unit_ );
+			final int words = ( capacity >>> 6 ) + 1;
+			if( this.bits_ == null || this.bits_.length < words ) {
+				this.bits_ = new long[words];
+			} else {
+				Arrays.fill( this.bits_, 0, words, 0L );
+			}
+			// every reachable sum gets its parent written, so no clearing
+			if( this.storage_ == SolveOptions.Storage.NONE ) {
+				this.close();
+			} else if( this.parent_ == null || this.parent_.size() < capacity + 1 || this.parent_.getStorage() != this.storage_ ) {
+				this.close();
+				this.parent_ = Parents.create( this.storage_, capacity + 1 );
+			}
+			final long[] bits = this.bits_;
+			bits[0] = 1L;
+			int sum = 0;
+			int i = 0;
+			for( ; i < values.length && sum < capacity && this.monitor_.tick( 1L ); ++i ) {
+				if( values[i] == 0L || values[i] > this.limit_ ) {
+					continue;
+				}
+				DynamicProgramming.shiftOr( bits, ( int )( values[i] / this.unit_ ), capacity, this.parent_, i );
+				// rebuilding without parents is too slow for every improvement
+				if( this.parent_ != null && this.monitor_.isListening() ) {
+					sum = DynamicProgramming.findLast( bits, capacity );
+					if( this.monitor_.isImprovement( sum * this.unit_ ) ) {
+						this.monitor_.improve( this.extract( sum ) );
+					}
+				} else if( ( bits[capacity >>> 6] & ( 1L << capacity ) ) != 0L ) {
+					sum = capacity;
+				}
+			}
+			this.applied_ = i;
+			return this.extract( DynamicProgramming.findLast( bits, capacity ) );
+		}
+
+		private static int findLast( long[] bits, int capacity ) {
+			int sum = capacity;
+			while( ( bits[sum >>> 6] & ( 1L << sum ) ) == 0L ) {
+				--sum;
+			}
+			return sum;
+		}
+
+		/**
+		 * Rebuild the selection of a reachable sum.
+		 */
+		private Pack< T > extract( int sum ) {
+			final long[] values = this.table_.getValues();
+			final boolean[] selected = new boolean[values.length];
+			// zero-sized items always fit
+			for( int i = 0; i < values.length; ++i ) {
+				selected[i] = values[i] == 0L;
+			}
+			if( this.parent_ == null ) {
+				this.rebuild( sum, selected );
+				return this.table_.extract( selected );
+			}
+			// parent[s] is the first item which reaches s, so every step
+			// walks to an item with smaller index
+			while( sum > 0 ) {
+				int i = this.parent_.get( sum );
+				selected[i] = true;
+				sum -= ( int )( values[i] / this.unit_ );
+			}
+			return this.table_.extract( selected );
+		}
+
+		/**
+		 * Rebuild the selection of a reachable sum without parents, as
+		 * Hirschberg's algorithm does: split the items into halves, find
+		 * <code>a + b = sum</code> with <code>a</code> reachable by the first
+		 * half and <code>b</code> by the second, then recurse on both halves.
+		 * Only two bitsets are alive at any time. The sums of the subproblems
+		 * of a level add up to <code>sum</code> while their items halve, so
+		 * all levels together touch at most twice the words solving did.
+		 */
+		private void rebuild( int sum, boolean[] selected ) {
+			final long[] values = this.table_.getValues();
+			int[] items = new int[this.applied_];
+			int[] shifts = new int[this.applied_];
+			int n = 0;
+			for( int i = 0; i < this.applied_; ++i ) {
+				if( values[i] != 0L && values[i] <= this.limit_ ) {
+					items[n] = i;
+					shifts[n] = ( int )( values[i] / this.unit_ );
+					++n;
+				}
+			}
+			// the forward bitset is not needed anymore
+			final long[] backward = new long[( sum >>> 6 ) + 1];
+			this.rebuild( shifts, 0, n, sum, this.bits_, backward, items, selected );
+		}
+
+		private void rebuild( int[] shifts, int from, int to, int sum, long[] forward, long[] backward, int[] items, boolean[] selected ) {
+			if( sum == 0 ) {
+				return;
+			}
+			if( to - from == 1 ) {
+				selected[items[from]] = true;
+				return;
+			}
+			final int middle = ( from + to ) >>> 1;
+			DynamicProgramming.reach( shifts, from, middle, sum, forward );
+			DynamicProgramming.reach( shifts, middle, to, sum, backward );
+			final int a = DynamicProgramming.split( forward, backward, sum );
+			this.rebuild( shifts, from, middle, a, forward, backward, items, selected );
+			this.rebuild( shifts, middle, to, sum - a, forward, backward, items, selected );
+		}
+
+		/**
+		 * Find <code>a</code> reachable by <code>forward</code> such that
+		 * <code>sum - a</code> is reachable by <code>backward</code>.
+		 */
+		private static int split( long[] forward, long[] backward, int sum ) {
+			for( int k = 0; k <= sum >>> 6; ++k ) {
+				for( long w = forward[k]; w != 0L; w &= w - 1L ) {
+					final int a = ( k << 6 ) + Long.numberOfTrailingZeros( w );
+					final int b = sum - a;
+					if( b >= 0 && ( backward[b >>> 6] & ( 1L << b ) ) != 0L ) {
+						return a;
+					}
+				}
+			}
+			throw new IllegalStateException( "Unreachable sum: " + sum );
+		}
+
+		/**
+		 * Fill <code>bits</code> with sums up to <code>capacity</code>
+		 * reachable by the given items.
+		 */
+		private static void reach( int[] shifts, int from, int to, int capacity, long[] bits ) {
+			Arrays.fill( bits, 0, ( capacity >>> 6 ) + 1, 0L );
+			bits[0] = 1L;
+			for( int i = from; i < to; ++i ) {
+				if( shifts[i] <= capacity ) {
+					DynamicProgramming.shiftOr( bits, shifts[i], capacity, null, i );
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * Exact subset-sum by Pisinger's balanced dynamic programming (balsub),
+	 * in O(n * r) time where r is the largest value, independent of the
+	 * limit. Starting from the break solution, i.e. the leading items which
+	 * fit, items are only inserted while the sum is within the limit and
+	 * only removed while it is over, so every sum stays in
+	 * <code>(limit - r, limit + r]</code>.
+	 * <p><code>s[t][mu]</code> is the largest <code>s</code> such that a
+	 * balanced filling of sum <code>mu</code> keeps items before
+	 * <code>s</code> and uses no item after <code>t</code>, or 0 if there
+	 * is none. Items are 1-based as in the paper, and all rows are kept to
+	 * rebuild the selection.</p>
+	 * For internal usage only.
+	 */
+	private static class BalancedDynamicProgramming< T > {
+
+		/**
+		 * Get the amount of table cells.
+		 *
+		 * @param limit maximum value of combinations
+		 * @param values item values in descending order
+		 * @return Cells, or -1 if a row is too large to allocate.
+		 */
+		public static long getCells( long limit, long[] values ) {
+			final long unit = DynamicProgramming.getUnit( limit, values );
+			final long r = ( unit == 0L ) ? 0L : Math.min( values[0], limit ) / unit;
+			if( 2L * r > Integer.MAX_VALUE - 64 ) {
+				return -1L;
+			}
+			return ( values.length + 1L ) * 2L * r;
+		}
+
+		private long limit_;
+		private Table< T > table_;
+		private Monitor< T > monitor_;
+		private long unit_;
+		/// Values of items divided by unit, 1-based.
+		private long[] w_;
+		private int b_;
+		/// Lowest sum of the window in units, i.e. limit - r + 1.
+		private long low_;
+		private int width_;
+		/// Rows b - 1 to n, row t - b + 1 is for item t.
+		private int[][] s_;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param limit Maximum limit
+		 * @param table Items, their sum must exceed limit
+		 * @param monitor Budget
+		 */
+		public BalancedDynamicProgramming( long limit, Table< T > table, Monitor< T > monitor ) {
+			this.limit_ = limit;
+			this.table_ = table;
+			this.monitor_ = monitor;
+		}
+
+		/**
+		 * Solve. If the budget is exceeded, only the items applied so far
+		 * are considered.
+		 *
+		 * @throws IllegalArgumentException if the largest value is too large
+		 */
+		public Pack< T > call() {
+			final long[] values = this.table_.getValues();
+			final int n = values.length;
+			if( BalancedDynamicProgramming.getCells( this.limit_, values ) < 0L ) {
+				throw new IllegalArgumentException( "Too many states: " + 2L * values[0] );
+			}
+			this.unit_ = DynamicProgramming.getUnit( this.limit_, values );
+			final long c = this.limit_ / this.unit_;
+			final long r = values[0] / this.unit_;
+			this.w_ = new long[n + 1];
+			for( int i = 0; i < n; ++i ) {
+				this.w_[i + 1] = values[i] / this.unit_;
+			}
+			long bar = 0L;
+			int b = 1;
+			while( b <= n && bar + this.w_[b] <= c ) {
+				bar += this.w_[b];
+				++b;
+			}
+			this.b_ = b;
+			this.low_ = c - r + 1L;
+			this.width_ = ( int )( 2L * r );
+			this.s_ = new int[n - b + 2][];
+
+			int[] previous = new int[this.width_];
+			previous[( int )( bar - this.low_ )] = b;
+			this.s_[0] = previous;
+			final int top = ( int )( c - this.low_ );
+			int t = b;
+			for( ; t <= n && previous[top] == 0 && this.monitor_.tick( 1L ); ++t ) {
+				int[] current = previous.clone();
+				final int w = ( int )this.w_[t];
+				// insert t into sums within the limit
+				for( int i = 0; i + w < this.width_ && i <= top; ++i ) {
+					if( previous[i] > current[i + w] ) {
+						current[i + w] = previous[i];
+					}
+				}
+				// remove items from sums over the limit, from the top so that
+				// removals cascade
+				for( int i = Math.min( top + w, this.width_ - 1 ); i > top; --i ) {
+					for( int j = Math.max( previous[i], 1 ); j < current[i]; ++j ) {
+						final int k = i - ( int )this.w_[j];
+						if( k >= 0 && j > current[k] ) {
+							current[k] = j;
+						}
+					}
+				}
+				this.s_[t - b + 1] = current;
+				previous = current;
+				if( this.monitor_.isListening() ) {
+					final int best = BalancedDynamicProgramming.findLast( current, top );
+					if( best >= 0 && this.monitor_.isImprovement( ( this.low_ + best ) * this.unit_ ) ) {
+						this.monitor_.improve( this.extract( t, best ) );
+					}
+				}
+			}
+			final int best = BalancedDynamicProgramming.findLast( previous, top );
+			return this.extract( t - 1, best );
+		}
+
+		private static int findLast( int[] row, int top ) {
+			int i = top;
+			while( i >= 0 && row[i] == 0 ) {
+				--i;
+			}
+			return i;
+		}
+
+		private int get( int t, int i ) {
+			return this.s_[t - this.b_ + 1][i];
+		}
+
+		/**
+		 * Rebuild the selection of sum <code>low + i</code> from row
+		 * <code>t</code>. The break solution is in row b - 1, and rows never
+		 * lose states, so some sum within the limit always exists. A state <code>(t, mu, s)</code> exists iff
+		 * <code>s &lt;= s[t][mu]</code>, so every step moves to an existing
+		 * predecessor: leave out item t, insert item t, or put back a
+		 * removed item <code>j &gt;= s</code>. The last one raises
+		 * <code>s</code>, so each level ends.
+		 */
+		private Pack< T > extract( int t, int i ) {
+			final long[] values = this.table_.getValues();
+			final boolean[] selected = new boolean[values.length];
+			for( int j = 0; j < values.length; ++j ) {
+				selected[j] = j < this.b_ - 1 || values[j] == 0L;
+			}
+			final int top = this.width_ / 2 - 1;
+			int s = 1;
+			while( t >= this.b_ ) {
+				final int w = ( int )this.w_[t];
+				if( this.get( t - 1, i ) >= s ) {
+					--t;
+				} else if( i - w >= 0 && i - w <= top && this.get( t - 1, i - w ) >= s ) {
+					selected[t - 1] = true;
+					i -= w;
+					--t;
+				} else {
+					// s only grows, so all scans together take O(b)
+					int j = s;
+					while( i + this.w_[j] <= top || i + this.w_[j] >= this.width_ || this.get( t, i + ( int )this.w_[j] ) <= j ) {
+						++j;
+					}
+					selected[j - 1] = false;
+					i += ( int )this.w_[j];
+					s = j + 1;
+				}
+			}
+			return this.table_.extract( selected );
+		}
+
+	}
+
+	/**
+	 * Fully polynomial-time approximation scheme of subset-sum, in the
+	 * manner of Kellerer et al. Sums are bucketed into intervals of width
+	 * <code>delta</code>, and only the smallest and the largest sum of each
+	 * interval are kept. For every prefix of an optimal solution, one of the
+	 * kept sums is at most <code>delta</code> below it, so the result is at
+	 * most <code>delta</code> below the optimum.
+	 * For internal usage only.
+	 */
+	private static class Approximation< T > {
+
+		/**
+		 * A kept sum, linked to the sum it extends.
+		 */
+		private static class Node {
+
+			private long sum_;
+			private int item_;
+			private Node previous_;
+
+			public Node( long sum, int item, Node previous ) {
+				this.sum_ = sum;
+				this.item_ = item;
+				this.previous_ = previous;
+			}
+
+		}
+
+		private long limit_;
+		private Table< T > table_;
+		private long delta_;
+		private Monitor< T > monitor_;
+		private Node[] low_;
+		private Node[] high_;
+		private Node best_;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param limit Maximum limit
+		 * @param table Items
+		 * @param delta Absolute error, at least 1
+		 * @param monitor Budget
+		 * @throws IllegalArgumentException if there are too many intervals
+		 */
+		public Approximation( long limit, Table< T > table, long delta, Monitor< T > monitor ) {
+			if( limit / delta >= Integer.MAX_VALUE ) {
+				throw new IllegalArgumentException( "Too many intervals: " + limit / delta );
+			}
+			this.limit_ = limit;
+			this.table_ = table;
+			this.delta_ = delta;
+			this.monitor_ = monitor;
+		}
+
+		/**
+		 * Solve. If the budget is exceeded, only the items applied so far
+		 * are considered.
+		 */
+		public Pack< T > call() {
+			final long[] values = this.table_.getValues();
+			final int intervals = ( int )( this.limit_ / this.delta_ ) + 1;
+			this.low_ = new Node[intervals];
+			this.high_ = new Node[intervals];
+			this.best_ = new Node( 0L, -1, null );
+			this.low_[0] = this.best_;
+			this.high_[0] = this.best_;
+			for( int i = 0; i < values.length && this.best_.sum_ < this.limit_ && this.monitor_.tick( 1L ); ++i ) {
+				if( values[i] == 0L || values[i] > this.limit_ ) {
+					continue;
+				}
+				// new sums only go to the same or higher intervals, so
+				// walking down reads every interval before it changes
+				for( int k = intervals - 1; k >= 0; --k ) {
+					final Node low = this.low_[k];
+					final Node high = this.high_[k];
+					if( low == null ) {
+						continue;
+					}
+					this.add( low, i, values[i] );
+					if( high != low ) {
+						this.add( high, i, values[i] );
+					}
+				}
+				if( this.monitor_.isImprovement( this.best_.sum_ ) ) {
+					this.monitor_.improve( this.extract( this.best_ ) );
+				}
+			}
+			return this.extract( this.best_ );
+		}
+
+		private void add( Node from, int item, long value ) {
+			final long sum = from.sum_ + value;
+			if( sum > this.limit_ ) {
+				return;
+			}
+			final int k = ( int )( sum / this.delta_ );
+			final Node low = this.low_[k];
+			final Node high = this.high_[k];
+			final boolean lower = low == null || sum < low.sum_;
+			final boolean higher = high == null || sum > high.sum_;
+			if( !lower && !higher ) {
+				return;
+			}
+			Node node = new Node( sum, item, from );
+			if( lower ) {
+				this.low_[k] = node;
+			}
+			if( higher ) {
+				this.high_[k] = node;
+			}
+			if( sum > this.best_.sum_ ) {
+				this.best_ = node;
+			}
+		}
+
+		private Pack< T > extract( Node node ) {
+			final long[] values = this.table_.getValues();
+			final boolean[] selected = new boolean[values.length];
+			// zero-sized items always fit
+			for( int i = 0; i < values.length; ++i ) {
+				selected[i] = values[i] == 0L;
+			}
+			for( ; node.item_ >= 0; node = node.previous_ ) {
+				selected[node.item_] = true;
+			}
+			return this.table_.extract( selected );
+		}
+
+	}
+
+	/**
+	 * Exact subset-sum over sparse reachable sums.
+	 * Sums are split by their high bits into containers of 65536 sums, as
+	 * Roaring bitmaps do, and containers are kept in sorted arrays. A
+	 * container is a sorted array while it has at most 4096 sums, and a
+	 * bitmap after that, so memory follows the amount of distinct reachable
+	 * sums instead of the limit or 2^n.
+	 * For internal usage only.
+	 */
+	private static class SumSet< T > {
+
+		/**
+		 * Reachable sums sharing the same high bits, with the item which
+		 * reaches each of them first.
+		 */
+		private static class Container {
+
+			private static final int MAX_ARRAY = 4096;
+
+			/// Sorted low bits, or null if it is a bitmap.
+			private char[] lows_;
+			private long[] bits_;
+			/// Parallel to lows_, or indexed by low bits in a bitmap.
+			private int[] parents_;
+			private int size_;
+
+			public Container() {
+				this.lows_ = new char[1];
+				this.bits_ = null;
+				this.parents_ = new int[1];
+				this.size_ = 0;
+			}
+
+			/**
+			 * Add sums which are not in this container yet.
+			 *
+			 * @param lows low bits in ascending order
+			 * @param from first index of lows
+			 * @param to last index of lows, exclusive
+			 * @param parent item which reaches them
+			 */
+			public void addAll( char[] lows, int from, int to, int parent ) {
+				final int count = to - from;
+				if( this.bits_ == null && this.size_ + count > Container.MAX_ARRAY ) {
+					this.toBitmap();
+				}
+				if( this.bits_ != null ) {
+					for( int j = from; j < to; ++j ) {
+						this.bits_[lows[j] >>> 6] |= 1L << lows[j];
+						this.parents_[lows[j]] = parent;
+					}
+					this.size_ += count;
+					return;
+				}
+
+				if( this.lows_.length < this.size_ + count ) {
+					final int length = Math.min( Container.MAX_ARRAY, Math.max( this.lows_.length * 2, this.size_ + count ) );
+					this.lows_ = Arrays.copyOf( this.lows_, length );
+					this.parents_ = Arrays.copyOf( this.parents_, length );
+				}
+				// merge from the end, so nothing is overwritten before moved
+				int i = this.size_ - 1, j = to - 1, k = this.size_ + count - 1;
+				while( j >= from ) {
+					if( i >= 0 && this.lows_[i] > lows[j] ) {
+						this.lows_[k] = this.lows_[i];
+						this.parents_[k] = this.parents_[i];
+						--i;
+					} else {
+						this.lows_[k] = lows[j];
+						this.parents_[k] = parent;
+						--j;
+					}
+					--k;
+				}
+				this.size_ += count;
+			}
+
+			public boolean contains( int low ) {
+				if( this.bits_ != null ) {
+					return ( this.bits_[low >>> 6] & ( 1L << low ) ) != 0L;
+				}
+				return Arrays.binarySearch( this.lows_, 0, this.size_, ( char )low ) >= 0;
+			}
+
+			public int getParent( int low ) {
+				if( this.bits_ != null ) {
+					return this.parents_[low];
+				}
+				return this.parents_[Arrays.binarySearch( this.lows_, 0, this.size_, ( char )low )];
+			}
+
+			/**
+			 * Copy low bits in ascending order.
+			 *
+			 * @param lows buffer of 65536 elements
+			 * @return Amount of sums.
+			 */
+			public int getLows( char[] lows ) {
+				if( this.bits_ == null ) {
+					System.arraycopy( this.lows_, 0, lows, 0, this.size_ );
+					return this.size_;
+				}
+				int size = 0;
+				for( int w = 0; w < this.bits_.length; ++w ) {
+					for( long word = this.bits_[w]; word != 0L; word &= word - 1L ) {
+						lows[size++] = ( char )( ( w << 6 ) + Long.numberOfTrailingZeros( word ) );
+					}
+				}
+				return size;
+			}
+
+			private void toBitmap() {
+				final long[] bits = new long[1024];
+				final int[] parents = new int[65536];
+				for( int i = 0; i < this.size_; ++i ) {
+					bits[this.lows_[i] >>> 6] |= 1L << this.lows_[i];
+					parents[this.lows_[i]] = this.parents_[i];
+				}
+				this.lows_ = null;
+				this.bits_ = bits;
+				this.parents_ = parents;
+			}
+
+		}
+
+		private long limit_;
+		private Table< T > table_;
+		private Monitor< T > monitor_;
+		/// High bits of containers in ascending order, as Roaring keeps them.
+		private long[] keys_;
+		private Container[] containers_;
+		private int size_;
+
+		public SumSet( long limit, Table< T > table, Monitor< T > monitor ) {
+			this.limit_ = limit;
+			this.table_ = table;
+			this.monitor_ = monitor;
+			this.keys_ = new long[1];
+			this.containers_ = new Container[1];
+			this.size_ = 0;
+		}
+
+		/**
+		 * Solve. If the budget is exceeded, only the items applied so far
+		 * are considered.
+		 */
+		public Pack< T > call() {
+			final long[] values = this.table_.getValues();
+			final char[] lows = new char[65536];
+			long[] fresh = new long[64];
+
+			this.keys_[0] = 0L;
+			this.containers_[0] = new Container();
+			this.containers_[0].addAll( new char[1], 0, 1, -1 );
+			this.size_ = 1;
+			long best = 0L;
+			for( int i = 0; i < values.length && best < this.limit_ && this.monitor_.tick( 1L ); ++i ) {
+				final long w = values[i];
+				if( w == 0L || w > this.limit_ ) {
+					continue;
+				}
+
+				// new sums are found in ascending order, so their containers
+				// are found by a second cursor instead of lookups
+				int size = 0;
+				for( int c = 0, t = 0; c < this.size_; ++c ) {
+					final long base = this.keys_[c] << 16;
+					if( base + w > this.limit_ ) {
+						break;
+					}
+					final int n = this.containers_[c].getLows( lows );
+					for( int k = 0; k < n; ++k ) {
+						final long sum = base + lows[k] + w;
+						if( sum > this.limit_ ) {
+							break;
+						}
+						while( t < this.size_ && this.keys_[t] < sum >>> 16 ) {
+							++t;
+						}
+						if( t == this.size_ || this.keys_[t] != sum >>> 16 || !this.containers_[t].contains( ( int )( sum & 0xFFFFL ) ) ) {
+							if( size == fresh.length ) {
+								fresh = Arrays.copyOf( fresh, size * 2 );
+							}
+							fresh[size++] = sum;
+						}
+					}
+				}
+				if( size == 0 ) {
+					continue;
+				}
+
+				this.insert( fresh, size, lows, i );
+				if( fresh[size - 1] > best ) {
+					best = fresh[size - 1];
+					if( this.monitor_.isImprovement( best ) ) {
+						this.monitor_.improve( this.extract( best ) );
+					}
+				}
+			}
+			return this.extract( best );
+		}
+
+		/**
+		 * Add new sums, and merge new containers into the sorted arrays.
+		 *
+		 * @param sums new sums in ascending order
+		 * @param size amount of sums
+		 * @param lows buffer of 65536 elements
+		 * @param parent item which reaches them
+		 */
+		private void insert( long[] sums, int size, char[] lows, int parent ) {
+			ArrayList< Container > added = new ArrayList< Container >();
+			long[] addedKeys = new long[16];
+			for( int from = 0, to = 0, t = 0; from < size; from = to ) {
+				final long high = sums[from] >>> 16;
+				int n = 0;
+				for( to = from; to < size && sums[to] >>> 16 == high; ++to ) {
+					lows[n++] = ( char )( sums[to] & 0xFFFFL );
+				}
+				while( t < this.size_ && this.keys_[t] < high ) {
+					++t;
+				}
+				Container c;
+				if( t < this.size_ && this.keys_[t] == high ) {
+					c = this.containers_[t];
+				} else {
+					c = new Container();
+					if( added.size() == addedKeys.length ) {
+						addedKeys = Arrays.copyOf( addedKeys, added.size() * 2 );
+					}
+					addedKeys[added.size()] = high;
+					added.add( c );
+				}
+				c.addAll( lows, 0, n, parent );
+			}
+			if( added.isEmpty() ) {
+				return;
+			}
+
+			final int total = this.size_ + added.size();
+			long[] keys = ( total <= this.keys_.length ) ? this.keys_ : new long[Math.max( total, this.keys_.length * 2 )];
+			Container[] containers = ( total <= this.containers_.length ) ? this.containers_ : new Container[keys.length];
+			// merge from the end, so it also works in place
+			int i = this.size_ - 1, j = added.size() - 1;
+			for( int k = total - 1; k >= 0; --k ) {
+				if( j < 0 || ( i >= 0 && this.keys_[i] > addedKeys[j] ) ) {
+					keys[k] = this.keys_[i];
+					containers[k] = this.containers_[i];
+					--i;
+				} else {
+					keys[k] = addedKeys[j];
+					containers[k] = added.get( j );
+					--j;
+				}
+			}
+			this.keys_ = keys;
+			this.containers_ = containers;
+			this.size_ = total;
+		}
+
+		/**
+		 * Rebuild the selection of a reachable sum.
+		 */
+		private Pack< T > extract( long sum ) {
+			final long[] values = this.table_.getValues();
+			final boolean[] selected = new boolean[values.length];
+			// zero-sized items always fit
+			for( int i = 0; i < values.length; ++i ) {
+				selected[i] = values[i] == 0L;
+			}
+			// every step walks to an item with smaller index
+			while( sum > 0L ) {
+				final int c = Arrays.binarySearch( this.keys_, 0, this.size_, sum >>> 16 );
+				final int i = this.containers_[c].getParent( ( int )( sum & 0xFFFFL ) );
+				selected[i] = true;
+				sum -= values[i];
+			}
+			return this.table_.extract( selected );
+		}
+
+	}
+
+	/**
+	 * Exact subset-sum by Horowitz-Sahni meet-in-the-middle.
+	 * Subset sums of both halves are enumerated in sorted order, then the
+	 * best pair is found by a two-pointer merge. Once the monitor expires,
+	 * the items enumerated so far are merged.
+	 * For internal usage only.
+	 */
+	private static class MeetInTheMiddle< T > {
+
+		/**
+		 * Enumerate distinct subset sums which are not greater than limit.
+		 * Sums are generated in ascending order by merging the list with
+		 * itself shifted by each item, so no sorting is needed. Each merged
+		 * sum is a step of the monitor, and an item is left out if the monitor
+		 * expires while merging it.
+		 *
+		 * @return Amount of sums.
+		 */
+		private static int enumerate( long[] values, int[] index, int from, int to, long limit, long[] sums, int[] masks, long[] tmpSums, int[] tmpMasks, Monitor< ? > monitor ) {
+			int size = 1;
+			sums[0] = 0L;
+			masks[0] = 0;
+			for( int j = from; j < to; ++j ) {
+				final long w = values[index[j]];
+				final int bit = 1 << ( j - from );
+				int l = 0, r = 0, k = 0;
+				while( l < size || r < size ) {
+					long rv = ( r < size ) ? sums[r] + w : Long.MAX_VALUE;
+					if( rv > limit ) {
+						rv = Long.MAX_VALUE;
+						r = size;
+					}
+					if( l < size && sums[l] <= rv ) {
+						if( sums[l] == rv ) {
+							++r;
+						}
+						tmpSums[k] = sums[l];
+						tmpMasks[k] = masks[l];
+						++l;
+					} else if( r < size ) {
+						tmpSums[k] = rv;
+						tmpMasks[k] = masks[r] | bit;
+						++r;
+					} else {
+						break;
+					}
+					if( ( ++k & 0xFFFF ) == 0 && !monitor.tick( 0x10000 ) ) {
+						return size;
+					}
+				}
+				System.arraycopy( tmpSums, 0, sums, 0, k );
+				System.arraycopy( tmpMasks, 0, masks, 0, k );
+				size = k;
+			}
+			return size;
+		}
+
+		private long limit_;
+		private Table< T > table_;
+		private Monitor< T > monitor_;
+
+		public MeetInTheMiddle( long limit, Table< T > table, Monitor< T > monitor ) {
+			this.limit_ = limit;
+			this.table_ = table;
+			this.monitor_ = monitor;
+		}
+
+		public Pack< T > call() {
+			final long[] values = this.table_.getValues();
+			final boolean[] selected = new boolean[values.length];
+			// items over the limit never fit
+			int n = 0;
+			final int[] index = new int[values.length];
+			for( int i = 0; i < values.length; ++i ) {
+				if( values[i] <= this.limit_ ) {
+					index[n++] = i;
+				}
+			}
+			final int half = n / 2;
+			if( n - half > 30 ) {
+				throw new IllegalArgumentException( "Too many items: " + n );
+			}
+
+			final int capacity = 1 << ( n - half );
+			final long[] lowerSums = new long[1 << half];
+			final int[] lowerMasks = new int[1 << half];
+			final long[] upperSums = new long[capacity];
+			final int[] upperMasks = new int[capacity];
+			final long[] tmpSums = new long[capacity];
+			final int[] tmpMasks = new int[capacity];
+			final int lowerSize = MeetInTheMiddle.enumerate( values, index, 0, half, this.limit_, lowerSums, lowerMasks, tmpSums, tmpMasks, this.monitor_ );
+			final int upperSize = MeetInTheMiddle.enumerate( values, index, half, n, this.limit_, upperSums, upperMasks, tmpSums, tmpMasks, this.monitor_ );
+
+			long best = -1L;
+			int bestLower = 0, bestUpper = 0;
+			for( int i = 0, j = upperSize - 1; i < lowerSize && j >= 0 && best < this.limit_; ++i ) {
+				if( ( i & 0xFFFF ) == 0xFFFF && !this.monitor_.tick( 0x10000 ) ) {
+					break;
+				}
+				while( j >= 0 && lowerSums[i] + upperSums[j] > this.limit_ ) {
+					--j;
+				}
+				if( j >= 0 && lowerSums[i] + upperSums[j] > best ) {
+					best = lowerSums[i] + upperSums[j];
+					bestLower = i;
+					bestUpper = j;
+				}
+			}
+
+			for( int j = 0; j < half; ++j ) {
+				selected[index[j]] = ( lowerMasks[bestLower] & ( 1 << j ) ) != 0;
+			}
+			for( int j = half; j < n; ++j ) {
+				selected[index[j]] = ( upperMasks[bestUpper] & ( 1 << ( j - half ) ) ) != 0;
+			}
+			return this.table_.extract( selected );
+		}
+
+	}
+
+	/**
+	 * Bounded set of visited search states, i.e. pairs of item index and
+	 * partial sum, in primitive arrays. A state is probed linearly in a window
+	 * of {@link #WINDOW} slots. Slots are never emptied, so a probe stops at
+	 * the first empty one. Once a window is full, a clock hand sweeps it,
+	 * gives states hit since the last sweep a second chance, and replaces the
+	 * first one which was not.
+	 * For internal usage only.
+	 */
+	private static class TranspositionTable {
+
+		/// Bytes of a slot, i.e. a sum and an index.
+		public static final long SLOT_BYTES = 12L;
+		/// Memory cap if options leave it automatic.
+		public static final long DEFAULT_MEMORY = 64L << 20;
+		private static final int WINDOW = 8;
+		private static final int REFERENCED = 0x80000000;
+
+		/**
+		 * Create a table for a search, no larger than the amount of states.
+		 *
+		 * @param limit maximum partial sum
+		 * @param size amount of items
+		 * @param options memory cap
+		 */
+		public static TranspositionTable create( long limit, int size, SolveOptions< ? > options ) {
+			long bytes = options.getTableMemory();
+			if( bytes <= 0L ) {
+				bytes = Math.min( TranspositionTable.DEFAULT_MEMORY, Planner.getFreeMemory() );
+			}
+			long slots = bytes / TranspositionTable.SLOT_BYTES;
+			if( limit < slots / Math.max( size, 1 ) ) {
+				slots = ( limit + 1L ) * Math.max( size, 1 );
+			}
+			slots = Math.min( Math.max( slots, TranspositionTable.WINDOW ), 1L << 30 );
+			return new TranspositionTable( Integer.highestOneBit( ( int )slots ) );
+		}
+
+		private long[] sums_;
+		/// Item index plus one, or 0 if empty, with the referenced bit.
+		private int[] indexes_;
+		private int mask_;
+		private int hand_;
+
+		/**
+		 * @param slots a power of two, not less than {@link #WINDOW}
+		 */
+		public TranspositionTable( int slots ) {
+			this.sums_ = new long[slots];
+			this.indexes_ = new int[slots];
+			this.mask_ = slots - 1;
+			this.hand_ = 0;
+		}
+
+		/**
+		 * Add a state, evicting an old one if its window is full.
+		 *
+		 * @param index item index
+		 * @param sum partial sum
+		 * @return false if the state is already in the table
+		 */
+		public boolean add( int index, long sum ) {
+			final int key = index + 1;
+			final int slot = ( int )( ( ( sum * 0x9E3779B97F4A7C15L + index ) * 0xBF58476D1CE4E5B9L ) >>> 34 ) & this.mask_;
+			for( int k = 0; k < TranspositionTable.WINDOW; ++k ) {
+				final int s = ( slot + k ) & this.mask_;
+				final int entry = this.indexes_[s];
+				if( entry == 0 ) {
+					this.indexes_[s] = key;
+					this.sums_[s] = sum;
+					return true;
+				}
+				if( ( entry & ~TranspositionTable.REFERENCED ) == key && this.sums_[s] == sum ) {
+					this.indexes_[s] = entry | TranspositionTable.REFERENCED;
+					return false;
+				}
+			}
+			// second chance, ends within a round and one slot
+			for( ;; ) {
+				final int s = ( slot + ( this.hand_++ & ( TranspositionTable.WINDOW - 1 ) ) ) & this.mask_;
+				if( ( this.indexes_[s] & TranspositionTable.REFERENCED ) != 0 ) {
+					this.indexes_[s] &= ~TranspositionTable.REFERENCED;
+				} else {
+					this.indexes_[s] = key;
+					this.sums_[s] = sum;
+					return true;
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * Exact subset-sum by iterative branch and bound.
+	 * Items are tried in descending order, the current selection is an index
+	 * stack, and a branch is cut once the remaining items can not beat the
+	 * best score. Nothing is allocated while searching.
+	 * With a {@link TranspositionTable}, a subtree is skipped if the same
+	 * partial sum already reached the same index through another prefix,
+	 * since the best score has only grown since that subtree was searched.
+	 * For internal usage only.
+	 */
+	private static class DepthFirstSearch< T > {
+
+		/// Subtrees of fewer items are cheaper to search again than to look up.
+		private static final int MEMO_ITEMS = 12;
+
+		/**
+		 * Best selection found so far, shared by all searching threads.
+		 */
+		private static class Incumbent {
+
+			private AtomicLong score_;
+			private int[] stack_;
+			private int top_;
+			private int from_;
+
+			public Incumbent( int size ) {
+				this.score_ = new AtomicLong( -1L );
+				this.stack_ = new int[size];
+				this.top_ = 0;
+				this.from_ = size;
+			}
+
+			public long get() {
+				return this.score_.get();
+			}
+
+			/**
+			 * Record a selection if it is better than current one.
+			 *
+			 * @param score total value
+			 * @param stack included indexes before <code>from</code>
+			 * @param top size of stack
+			 * @param from all indexes from this one are included
+			 * @return true if recorded.
+			 */
+			public synchronized boolean offer( long score, int[] stack, int top, int from ) {
+				if( score <= this.score_.get() ) {
+					return false;
+				}
+				System.arraycopy( stack, 0, this.stack_, 0, top );
+				this.top_ = top;
+				this.from_ = from;
+				this.score_.set( score );
+				return true;
+			}
+
+		}
+
+		private long limit_;
+		private Table< T > table_;
+		/// Index in table of each candidate, in descending order of value.
+		private int[] index_;
+		private long[] values_;
+		/// Sum of values from i to the end.
+		private long[] suffix_;
+		private Incumbent incumbent_;
+		private Monitor< T > monitor_;
+		/// Fully searched states, or null if not memoized.
+		private TranspositionTable memo_;
+
+		public DepthFirstSearch( long limit, Table< T > table, Monitor< T > monitor ) {
+			this( limit, table, monitor, null );
+		}
+
+		/**
+		 * @param memo fully searched states, or null to search every subtree
+		 */
+		public DepthFirstSearch( long limit, Table< T > table, Monitor< T > monitor, TranspositionTable memo ) {
+			this.limit_ = limit;
+			this.monitor_ = monitor;
+			this.table_ = table;
+			this.memo_ = memo;
+
+			// items over the limit never fit
+			final long[] values = this.table_.getValues();
+			int n = 0;
+			for( long v : values ) {
+				if( v <= this.limit_ ) {
+					++n;
+				}
+			}
+			this.index_ = new int[n];
+			this.values_ = new long[n];
+			for( int i = 0, j = 0; i < values.length; ++i ) {
+				if( values[i] <= this.limit_ ) {
+					this.index_[j] = i;
+					this.values_[j] = values[i];
+					++j;
+				}
+			}
+			this.suffix_ = new long[n + 1];
+			for( int i = n - 1; i >= 0; --i ) {
+				this.suffix_[i] = this.suffix_[i + 1] + this.values_[i];
+			}
+			this.incumbent_ = new Incumbent( n );
+		}
+
+		/**
+		 * Search until the limit is reached or the budget is exceeded.
+		 */
+		public Pack< T > call() {
+			this.search( new int[this.values_.length], 0, 0, 0L );
+			return this.extract();
+		}
+
+		/**
+		 * Build the pack of the best selection.
+		 */
+		public Pack< T > extract() {
+			final boolean[] selected = new boolean[this.table_.size()];
+			synchronized( this.incumbent_ ) {
+				for( int j = 0; j < this.incumbent_.top_; ++j ) {
+					selected[this.index_[this.incumbent_.stack_[j]]] = true;
+				}
+				for( int j = this.incumbent_.from_; j < this.values_.length; ++j ) {
+					selected[this.index_[j]] = true;
+				}
+			}
+			return this.table_.extract( selected );
+		}
+
+		public Incumbent getIncumbent() {
+			return this.incumbent_;
+		}
+
+		public long getLimit() {
+			return this.limit_;
+		}
+
+		public Monitor< T > getMonitor() {
+			return this.monitor_;
+		}
+
+		public long[] getSuffix() {
+			return this.suffix_;
+		}
+
+		public long[] getValues() {
+			return this.values_;
+		}
+
+		/**
+		 * Record a selection to the incumbent, and report it if improved.
+		 */
+		public void offer( long score, int[] stack, int top, int from ) {
+			if( this.incumbent_.offer( score, stack, top, from ) && this.monitor_.isImprovement( score ) ) {
+				this.monitor_.improve( this.extract() );
+			}
+		}
+
+		/**
+		 * Search the subtree below given node. Items before <code>i</code>
+		 * are decided, and those in <code>stack</code> are included.
+		 *
+		 * @param stack included indexes, will be used as working space
+		 * @param top size of stack
+		 * @param i next index to decide
+		 * @param sum total value of stack
+		 */
+		public void search( int[] stack, int top, int i, long sum ) {
+			final int floor = top;
+			int nodes = 0;
+			while( this.incumbent_.get() < this.limit_ ) {
+				if( ++nodes == 1024 ) {
+					nodes = 0;
+					if( !this.monitor_.tick( 1024L ) ) {
+						break;
+					}
+				}
+				if( sum + this.suffix_[i] > this.incumbent_.get() ) {
+					if( sum + this.suffix_[i] <= this.limit_ ) {
+						// all the rest fit, no need to branch
+						this.offer( sum + this.suffix_[i], stack, top, i );
+					} else if( this.memo_ == null || this.values_.length - i < DepthFirstSearch.MEMO_ITEMS || this.memo_.add( i, sum ) ) {
+						if( sum + this.values_[i] <= this.limit_ ) {
+							stack[top++] = i;
+							sum += this.values_[i];
+						}
+						++i;
+						continue;
+					}
+				}
+				// backtrack to the exclusion branch of the last included item
+				if( top == floor ) {
+					break;
+				}
+				i = stack[--top];
+				sum -= this.values_[i];
+				++i;
+			}
+		}
+
+	}
+
+	/**
+	 * Exact subset-sum by parallel branch and bound.
+	 * The first levels of the search tree are split into fork-join tasks,
+	 * and each leaf task runs {@link DepthFirstSearch} on its subtree. All
+	 * tasks prune against the same incumbent, and stop once it is perfect.
+	 * For internal usage only.
+	 */
+	private static class ParallelSearch< T > {
+
+		private class Branch extends RecursiveAction {
+
+			private static final long serialVersionUID = -2405862498462373263L;
+			private int[] stack_;
+			private int top_;
+			private int i_;
+			private long sum_;
+
+			public Branch( int[] stack, int top, int i, long sum ) {
+				this.stack_ = stack;
+				this.top_ = top;
+				this.i_ = i;
+				this.sum_ = sum;
+			}
+
+			@Override
+			protected void compute() {
+				final DepthFirstSearch< T > dfs = ParallelSearch.this.dfs_;
+				final long[] values = dfs.getValues();
+				final long[] suffix = dfs.getSuffix();
+				final long bound = this.sum_ + suffix[this.i_];
+				if( bound <= dfs.getIncumbent().get() || dfs.getMonitor().isExpired() ) {
+					return;
+				}
+				if( bound <= dfs.getLimit() ) {
+					dfs.offer( bound, this.stack_, this.top_, this.i_ );
+					return;
+				}
+				if( this.i_ >= ParallelSearch.this.depth_ ) {
+					dfs.search( this.stack_, this.top_, this.i_, this.sum_ );
+					return;
+				}
+
+				Branch exclude = new Branch( this.stack_.clone(), this.top_, this.i_ + 1, this.sum_ );
+				if( this.sum_ + values[this.i_] > dfs.getLimit() ) {
+					exclude.compute();
+					return;
+				}
+				this.stack_[this.top_] = this.i_;
+				Branch include = new Branch( this.stack_, this.top_ + 1, this.i_ + 1, this.sum_ + values[this.i_] );
+				RecursiveAction.invokeAll( include, exclude );
+			}
+
+		}
+
+		private DepthFirstSearch< T > dfs_;
+		private int parallelism_;
+		/// Nodes shallower than this will be split into tasks.
+		private int depth_;
+
+		public ParallelSearch( long limit, Table< T > table, int parallelism, Monitor< T > monitor ) {
+			this.dfs_ = new DepthFirstSearch< T >( limit, table, monitor );
+			this.parallelism_ = parallelism;
+			// about 16 tasks per thread
+			this.depth_ = Math.min( this.dfs_.getValues().length, 32 - Integer.numberOfLeadingZeros( parallelism ) + 4 );
+		}
+
+		public Pack< T > call() {
+			ForkJoinPool pool = new ForkJoinPool( this.parallelism_ );
+			try {
+				pool.invoke( new Branch( new int[this.dfs_.getValues().length], 0, 0, 0L ) );
+			} finally {
+				pool.shutdown();
+			}
+			return this.dfs_.extract();
+		}
+
+	}
+
+	/**
+	 * Genetic algorithm.
+	 * Chromosomes are bit words indexed as a {@link Table}, so crossover and
+	 * mutation only flip bits of preallocated cells.
+	 * For internal usage only.
+	 */
+	private static class GeneticAlgorithm< T > {
+
+		/**
+		 * A cell which represents a possible combination.
+		 */
+		private static class Cell implements Comparable< Cell > {
+
+			/// Bits of item selection.
+			private long[] bits_;
+			/// Total value
+			private long value_;
+
+			/**
+			 * Constructor.
+			 * Creates an empty selection.
+			 *
+			 * @param size Amount of items
+			 */
+			public Cell( int size ) {
+				this.bits_ = new long[( size + 63 ) >>> 6];
+				this.value_ = 0L;
+			}
+			/**
+			 * Copy constructor.
+			 *
+			 * @param that Copy source
+			 */
+			public Cell( Cell that ) {
+				this.bits_ = that.bits_.clone();
+				this.value_ = that.value_;
+			}
+			/**
+			 * Copy from another cell.
+			 *
+			 * @param that Copy source
+			 */
+			public void assign( Cell that ) {
+				System.arraycopy( that.bits_, 0, this.bits_, 0, this.bits_.length );
+				this.value_ = that.value_;
+			}
+			/**
+			 * Check if can toggle.
+			 *
+			 * @param index Toggle target
+			 * @param value Value of target
+			 * @param limit Maximum limit
+			 * @return true if can toggle.
+			 */
+			public boolean canToggle( int index, long value, long limit ) {
+				return ( this.get( index ) || this.value_ + value <= limit );
+			}
+			/**
+			 * Clear selection.
+			 */
+			public void clear() {
+				Arrays.fill( this.bits_, 0L );
+				this.value_ = 0L;
+			}
+			@Override
+			public int compareTo( Cell rhs ) {
+				return ( this.value_ < rhs.value_ ) ? 1 : ( ( this.value_ > rhs.value_ ) ? -1 : 0 );
+			}
+			/**
+			 * Check if an item is selected.
+			 *
+			 * @param index Item index
+			 * @return true if selected.
+			 */
+			public boolean get( int index ) {
+				return ( this.bits_[index >>> 6] & ( 1L << index ) ) != 0L;
+			}
+			/**
+			 * Get selection words.
+			 *
+			 * @return Selection bits.
+			 */
+			public long[] getBits() {
+				return this.bits_;
+			}
+			/**
+			 * Get total value.
+			 *
+			 * @return Total value.
+			 */
+			public long getValue() {
+				return this.value_;
+			}
+			/**
+			 * Toggle item selection.
+			 *
+			 * @param index Toggle target
+			 * @param value Value of target
+			 */
+			public void toggle( int index, long value ) {
+				this.bits_[index >>> 6] ^= 1L << index;
+				if( this.get( index ) ) {
+					this.value_ += value;
+				} else {
+					this.value_ -= value;
+				}
+			}
+			@Override
+			public String toString() {
+				return String.format( "(%d,%s)", this.value_, Arrays.toString( this.bits_ ) );
+			}
+		}
+
+		private long limit_;
+		private Table< T > table_;
+		private long[] values_;
+		/// Survivors in the head, and their children in the tail.
+		private Cell[] population_;
+		private SplittableRandom random_;
+		private Monitor< T > monitor_;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param limit Maximum limit
+		 * @param table Items, may be shared by other instances
+		 * @param random Random stream owned by this instance
+		 * @param monitor Budget, may be shared by other instances
+		 */
+		public GeneticAlgorithm( long limit, Table< T > table, SplittableRandom random, Monitor< T > monitor ) {
+			this.limit_ = limit;
+			this.table_ = table;
+			this.values_ = this.table_.getValues();
+			this.random_ = random;
+			this.monitor_ = monitor;
+
+			final int size = this.values_.length;
+			this.population_ = new Cell[size * 3];
+			for( int i = 0; i < this.population_.length; ++i ) {
+				this.population_[i] = new Cell( size );
+			}
+			for( int i = 0; i < size; ++i ) {
+				this.generatePopulation( this.population_[i] );
+			}
+			Arrays.sort( this.population_, 0, size );
+		}
+
+		/**
+		 * Evolve until the population converges or the budget is exceeded.
+		 */
+		public Pack< T > call() {
+			// the initial population may already be the answer
+			this.report();
+			while( !this.canStop() && this.monitor_.tick( 1L ) ) {
+				this.evolve();
+				this.report();
+			}
+			return this.extract( this.getBest() );
+		}
+
+		/**
+		 * Run one generation.
+		 */
+		public void evolve() {
+			this.crossOver();
+			this.mutation();
+			Arrays.sort( this.population_ );
+		}
+
+		/**
+		 * Build the pack of given cell.
+		 *
+		 * @param cell A cell of this or sibling instance
+		 * @return Pack of selected items.
+		 */
+		public Pack< T > extract( Cell cell ) {
+			boolean[] selected = new boolean[this.values_.length];
+			for( int i = 0; i < selected.length; ++i ) {
+				selected[i] = cell.get( i );
+			}
+			return this.table_.extract( selected );
+		}
+
+		/**
+		 * Get the best cell.
+		 *
+		 * @return Best cell.
+		 */
+		public Cell getBest() {
+			return this.population_[0];
+		}
+
+		public Monitor< T > getMonitor() {
+			return this.monitor_;
+		}
+
+		/**
+		 * Report the best cell if it is an improvement.
+		 */
+		public void report() {
+			if( this.monitor_.isImprovement( this.getBest().getValue() ) ) {
+				this.monitor_.improve( this.extract( this.getBest() ) );
+			}
+		}
+
+		/**
+		 * Replace the worst survivor by a copy of given cell.
+		 *
+		 * @param cell A cell of sibling instance
+		 */
+		public void immigrate( Cell cell ) {
+			final int size = this.values_.length;
+			this.population_[size - 1].assign( cell );
+			Arrays.sort( this.population_, 0, size );
+		}
+
+		public Boolean canStop() {
+			Cell head = this.population_[0];
+			Cell tail = this.population_[this.values_.length - 1];
+			return head.getValue() == tail.getValue() || head.getValue() == this.limit_;
+		}
+
+		private void crossOver() {
+			final int length = this.values_.length;
+			for( int i = 0; i < length; ++i ) {
+				Cell new1 = this.population_[length + i * 2];
+				Cell new2 = this.population_[length + i * 2 + 1];
+				new1.assign( this.population_[i] );
+				new2.assign( this.population_[this.selectParent()] );
+				final long[] bits1 = new1.getBits();
+				final long[] bits2 = new2.getBits();
+				for( int w = 0; w < bits1.length; ++w ) {
+					// only differing genes can be exchanged
+					for( long diff = bits1[w] ^ bits2[w]; diff != 0L; diff &= diff - 1L ) {
+						final int k = ( w << 6 ) + Long.numberOfTrailingZeros( diff );
+						if( !new1.canToggle( k, this.values_[k], this.limit_ ) || !new2.canToggle( k, this.values_[k], this.limit_ ) ) {
+							continue;
+						}
+						if( this.random_.nextDouble() < 0.5 ) {
+							new1.toggle( k, this.values_[k] );
+							new2.toggle( k, this.values_[k] );
+						}
+					}
+				}
+			}
+		}
+
+		private void generatePopulation( Cell cell ) {
+			cell.clear();
+			for( int i = 0; i < this.values_.length; ++i ) {
+				if( this.values_[i] + cell.getValue() <= this.limit_ && this.random_.nextDouble() * 2 < 1.0 ) {
+					cell.toggle( i, this.values_[i] );
+				}
+			}
+		}
+
+		/**
+		 * Every gene mutates with probability 1/N. Instead of rolling for
+		 * each gene, the distance to the next mutating gene is drawn from the
+		 * geometric distribution. The best cell is kept as is, so the best
+		 * solution never gets worse than a reported one.
+		 */
+		private void mutation() {
+			final int size = this.values_.length;
+			final double scale = 1.0 / Math.log( 1.0 - 1.0 / size );
+			for( int i = 1; i < this.population_.length; ++i ) {
+				final Cell cell = this.population_[i];
+				for( int k = this.nextGap( scale ); k < size; k += 1 + this.nextGap( scale ) ) {
+					if( cell.canToggle( k, this.values_[k], this.limit_ ) ) {
+						cell.toggle( k, this.values_[k] );
+					}
+				}
+			}
+		}
+
+		private int nextGap( double scale ) {
+			return ( int )Math.min( this.values_.length, Math.log( 1.0 - this.random_.nextDouble() ) * scale );
+		}
+
+		/**
+		 * Select parent index.
+		 * <pre>
+		 * N := total size
+		 *
+		 * Plain:
+		 * int i = 0;
+		 * for( ; Math.random() * ( N - i ) >= 2.0; ++i );
+		 * return i;
+		 *
+		 * PDF:
+		 * P( X = i ) = 2(N-1-i)/(N(N-1))
+		 *
+		 * CDF:
+		 * P( X <= i ) = i(2N-1-i)/(N(N-1)) = C
+		 * b = 2N-1
+		 * d = b^2 - 4CN(N-1)
+		 * i = (b-d^0.5)/2
+		 * </pre>
+		 */
+		private int selectParent() {
+			int n = this.values_.length;
+			int b = 2 * n - 1;
+			double c = this.random_.nextDouble();
+			double d = ( b * b - 1 ) * ( 1 - c ) + 1;
+			double k = ( b - Math.sqrt( d ) ) / 2;
+			return ( int )Math.floor( k );
+		}
+
+	}
+
+	/**
+	 * Island model of {@link GeneticAlgorithm}.
+	 * Every island evolves its own population in its own thread, with its
+	 * own random stream split from the given one. Between epochs the best cell of each island
+	 * migrates to the next island.
+	 * For internal usage only.
+	 */
+	private static class IslandGeneticAlgorithm< T > {
+
+		/// Generations between migrations.
+		private static final int EPOCH = 16;
+
+		private long limit_;
+		private ArrayList< GeneticAlgorithm< T > > islands_;
+		private Monitor< T > monitor_;
+
+		public IslandGeneticAlgorithm( long limit, Table< T > table, int islands, SplittableRandom random, Monitor< T > monitor ) {
+			this.limit_ = limit;
+			this.monitor_ = monitor;
+			this.islands_ = new ArrayList< GeneticAlgorithm< T > >();
+			for( int i = 0; i < islands; ++i ) {
+				this.islands_.add( new GeneticAlgorithm< T >( limit, table, random.split(), monitor ) );
+			}
+		}
+
+		public Pack< T > call() {
+			ArrayList< Callable< Boolean > > tasks = new ArrayList< Callable< Boolean > >();
+			for( final GeneticAlgorithm< T > island : this.islands_ ) {
+				tasks.add( new Callable< Boolean >() {
+					@Override
+					public Boolean call() {
+						for( int i = 0; i < EPOCH && !island.canStop() && island.getMonitor().tick( 1L ); ++i ) {
+							island.evolve();
+						}
+						return island.canStop();
+					}
+				} );
+			}
+
+			ExecutorService pool = Executors.newFixedThreadPool( this.islands_.size() );
+			try {
+				for( ;; ) {
+					List< Future< Boolean > > results = pool.invokeAll( tasks );
+					for( GeneticAlgorithm< T > island : this.islands_ ) {
+						island.report();
+					}
+					if( this.canStop( results ) ) {
+						break;
+					}
+					this.migrate();
+				}
+			} catch( InterruptedException e ) {
+				Thread.currentThread().interrupt();
+			} catch( ExecutionException e ) {
+				throw new RuntimeException( e.getCause() );
+			} finally {
+				pool.shutdownNow();
+			}
+
+			GeneticAlgorithm< T > best = this.islands_.get( 0 );
+			for( GeneticAlgorithm< T > island : this.islands_ ) {
+				if( island.getBest().getValue() > best.getBest().getValue() ) {
+					best = island;
+				}
+			}
+			return best.extract( best.getBest() );
+		}
+
+		private boolean canStop( List< Future< Boolean > > results ) throws InterruptedException, ExecutionException {
+			if( this.monitor_.isExpired() ) {
+				return true;
+			}
+			boolean converged = true;
+			for( int i = 0; i < results.size(); ++i ) {
+				converged &= results.get( i ).get();
+				if( this.islands_.get( i ).getBest().getValue() == this.limit_ ) {
+					return true;
+				}
+			}
+			return converged;
+		}
+
+		/**
+		 * Copy the best cell of every island to the next one, as a ring.
+		 */
+		private void migrate() {
+			final int size = this.islands_.size();
+			if( size < 2 ) {
+				return;
+			}
+			GeneticAlgorithm.Cell last = new GeneticAlgorithm.Cell( this.islands_.get( size - 1 ).getBest() );
+			for( int i = size - 1; i > 0; --i ) {
+				this.islands_.get( i ).immigrate( this.islands_.get( i - 1 ).getBest() );
+			}
+			this.islands_.get( 0 ).immigrate( last );
+		}
+
+	}
+
+	/**
+	 * Local search on a solution by 1-for-1, 2-for-1 and 1-for-2 exchanges
+	 * between picked and remaining items. Both sides are sorted arrays, so
+	 * the best partner of an item is a binary search away, and pairs are
+	 * pruned as soon as they can not beat the best exchange found. Every
+	 * pass applies the best exchange, until the limit is filled or nothing
+	 * fills more.
+	 * A pass scans 1-for-1 exchanges in O(n log n), but pairs in
+	 * O(n^2 log n) at worst; the pruning only shortens the usual case.
+	 * For internal usage only.
+	 */
+	private static class LocalSearch< T > {
+
+		/**
+		 * Items of one side in ascending order of size.
+		 */
+		private static class Side {
+
+			private long[] sizes_;
+			private int[] items_;
+			private int size_;
+
+			public Side( int capacity ) {
+				this.sizes_ = new long[capacity];
+				this.items_ = new int[capacity];
+				this.size_ = 0;
+			}
+
+			/**
+			 * Find the first index from <code>from</code> whose size is not
+			 * less than <code>size</code>.
+			 */
+			public int ceiling( long size, int from ) {
+				int low = from;
+				int high = this.size_;
+				while( low < high ) {
+					final int middle = ( low + high ) >>> 1;
+					if( this.sizes_[middle] < size ) {
+						low = middle + 1;
+					} else {
+						high = middle;
+					}
+				}
+				return low;
+			}
+
+			/**
+			 * Find the last index before <code>to</code> whose size is not
+			 * greater than <code>size</code>.
+			 *
+			 * @return Index, or -1 if there is none.
+			 */
+			public int floor( long size, int to ) {
+				int low = 0;
+				int high = to;
+				while( low < high ) {
+					final int middle = ( low + high ) >>> 1;
+					if( this.sizes_[middle] <= size ) {
+						low = middle + 1;
+					} else {
+						high = middle;
+					}
+				}
+				return low - 1;
+			}
+
+			public void insert( long size, int item ) {
+				final int i = this.ceiling( size, 0 );
+				System.arraycopy( this.sizes_, i, this.sizes_, i + 1, this.size_ - i );
+				System.arraycopy( this.items_, i, this.items_, i + 1, this.size_ - i );
+				this.sizes_[i] = size;
+				this.items_[i] = item;
+				++this.size_;
+			}
+
+			public void remove( int i ) {
+				System.arraycopy( this.sizes_, i + 1, this.sizes_, i, this.size_ - i - 1 );
+				System.arraycopy( this.items_, i + 1, this.items_, i, this.size_ - i - 1 );
+				--this.size_;
+			}
+
+		}
+
+		private long limit_;
+		private Table< T > table_;
+		private Monitor< T > monitor_;
+		private Side in_;
+		private Side out_;
+		private long score_;
+		/// Best exchange of current pass, as indexes of in_ and out_.
+		private long gain_;
+		private int[] drop_;
+		private int[] take_;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param limit Maximum limit
+		 * @param table Items
+		 * @param monitor Budget, every pass is a step
+		 */
+		public LocalSearch( long limit, Table< T > table, Monitor< T > monitor ) {
+			this.limit_ = limit;
+			this.table_ = table;
+			this.monitor_ = monitor;
+		}
+
+		/**
+		 * Improve a solution.
+		 *
+		 * @param pack items of the table, which fit in the limit
+		 * @return Improved solution, or pack if it can not be improved.
+		 * @throws IllegalArgumentException if pack has an item not in the table
+		 */
+		public Pack< T > call( Pack< T > pack ) {
+			final int n = this.table_.getKeyCount();
+			final long[] sizes = this.table_.getSizes();
+			HashMap< T, Integer > indexes = new HashMap< T, Integer >( n * 2 );
+			for( int i = 0; i < n; ++i ) {
+				indexes.put( this.table_.getKey( i ), i );
+			}
+			final boolean[] selected = new boolean[n];
+			this.score_ = 0L;
+			for( T item : pack.getItems() ) {
+				Integer i = indexes.get( item );
+				if( i == null ) {
+					throw new IllegalArgumentException( "No such item: " + item );
+				}
+				if( !selected[i] ) {
+					selected[i] = true;
+					this.score_ += sizes[i];
+				}
+			}
+			if( this.score_ > this.limit_ ) {
+				return pack;
+			}
+
+			// sizes of the table are descending
+			this.in_ = new Side( n );
+			this.out_ = new Side( n );
+			for( int i = n - 1; i >= 0; --i ) {
+				Side side = selected[i] ? this.in_ : this.out_;
+				side.sizes_[side.size_] = sizes[i];
+				side.items_[side.size_] = i;
+				++side.size_;
+			}
+			this.drop_ = new int[2];
+			this.take_ = new int[2];
+
+			boolean improved = false;
+			while( this.score_ < this.limit_ && this.monitor_.tick( 1L ) ) {
+				this.gain_ = 0L;
+				this.findOneForOne();
+				this.findOneForTwo();
+				this.findTwoForOne();
+				if( this.gain_ == 0L ) {
+					break;
+				}
+				this.exchange();
+				improved = true;
+				if( this.monitor_.isImprovement( this.score_ ) ) {
+					this.monitor_.improve( this.extract() );
+				}
+			}
+			return improved ? this.extract() : pack;
+		}
+
+		private void offer( long gain, int drop0, int drop1, int take0, int take1 ) {
+			if( gain > this.gain_ ) {
+				this.gain_ = gain;
+				this.drop_[0] = drop0;
+				this.drop_[1] = drop1;
+				this.take_[0] = take0;
+				this.take_[1] = take1;
+			}
+		}
+
+		/**
+		 * Replace a picked item by the largest remaining one which fits.
+		 */
+		private void findOneForOne() {
+			final long gap = this.limit_ - this.score_;
+			for( int i = 0; i < this.in_.size_; ++i ) {
+				final int j = this.out_.floor( this.in_.sizes_[i] + gap, this.out_.size_ );
+				if( j >= 0 ) {
+					this.offer( this.out_.sizes_[j] - this.in_.sizes_[i], i, -1, j, -1 );
+				}
+			}
+		}
+
+		/**
+		 * Replace a picked item by two remaining ones.
+		 */
+		private void findOneForTwo() {
+			final long gap = this.limit_ - this.score_;
+			for( int i = 0; i < this.in_.size_ && this.gain_ < gap; ++i ) {
+				final long room = this.in_.sizes_[i] + gap;
+				// the larger one goes first, so the smaller one is before it
+				for( int j = this.out_.floor( room, this.out_.size_ ); j > 0; --j ) {
+					final long first = this.out_.sizes_[j];
+					if( first + this.out_.sizes_[j - 1] - this.in_.sizes_[i] <= this.gain_ ) {
+						break;
+					}
+					final int k = this.out_.floor( room - first, j );
+					if( k >= 0 ) {
+						this.offer( first + this.out_.sizes_[k] - this.in_.sizes_[i], i, -1, j, k );
+					}
+				}
+			}
+		}
+
+		/**
+		 * Replace two picked items by a remaining one.
+		 */
+		private void findTwoForOne() {
+			final long gap = this.limit_ - this.score_;
+			for( int j = this.out_.size_ - 1; j >= 0 && this.gain_ < gap; --j ) {
+				final long take = this.out_.sizes_[j];
+				if( this.in_.size_ < 2 || take - this.in_.sizes_[0] - this.in_.sizes_[1] <= this.gain_ ) {
+					break;
+				}
+				// the smaller one goes first, so the larger one is after it
+				for( int i = 0; i + 1 < this.in_.size_; ++i ) {
+					final long first = this.in_.sizes_[i];
+					if( take - first - this.in_.sizes_[i + 1] <= this.gain_ ) {
+						break;
+					}
+					final int k = this.in_.ceiling( take - gap - first, i + 1 );
+					if( k < this.in_.size_ ) {
+						this.offer( take - first - this.in_.sizes_[k], i, k, j, -1 );
+					}
+				}
+			}
+		}
+
+		/**
+		 * Apply the best exchange of this pass.
+		 */
+		private void exchange() {
+			final long[] sizes = this.table_.getSizes();
+			int[] dropped = { this.in_.items_[this.drop_[0]], ( this.drop_[1] < 0 ) ? -1 : this.in_.items_[this.drop_[1]] };
+			int[] taken = { this.out_.items_[this.take_[0]], ( this.take_[1] < 0 ) ? -1 : this.out_.items_[this.take_[1]] };
+			// remove the later index first, so the earlier one stays valid
+			LocalSearch.remove( this.in_, this.drop_ );
+			LocalSearch.remove( this.out_, this.take_ );
+			for( int item : dropped ) {
+				if( item >= 0 ) {
+					this.out_.insert( sizes[item], item );
+				}
+			}
+			for( int item : taken ) {
+				if( item >= 0 ) {
+					this.in_.insert( sizes[item], item );
+				}
+			}
+			this.score_ += this.gain_;
+		}
+
+		private static void remove( Side side, int[] indexes ) {
+			side.remove( Math.max( indexes[0], indexes[1] ) );
+			if( indexes[0] >= 0 && indexes[1] >= 0 ) {
+				side.remove( Math.min( indexes[0], indexes[1] ) );
+			}
+		}
+
+		private Pack< T > extract() {
+			ArrayList< T > items = new ArrayList< T >( this.in_.size_ );
+			for( int i = 0; i < this.in_.size_; ++i ) {
+				items.add( this.table_.getKey( this.in_.items_[i] ) );
+			}
+			return new Pack< T >( this.score_, items );
+		}
+
+	}
+
+	/**
+	 * Races engines on their own threads. An exact engine which finishes,
+	 * or any engine which fills the limit, wins and the others are
+	 * cancelled. Otherwise the best result is taken when all engines stop,
+	 * e.g. at the deadline.
+	 * For internal usage only.
+	 */
+	private static class Portfolio< T > {
+
+		/// Time for engines to return their best after the deadline.
+		private static final long GRACE_NANOS = 100000000L;
+
+		private long limit_;
+		private Table< T > table_;
+		private SolveOptions< T > options_;
+		private Monitor< T > monitor_;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param limit Maximum limit
+		 * @param table Items
+		 * @param options Timeout and seed
+		 * @param monitor Budget shared by all engines
+		 */
+		public Portfolio( long limit, Table< T > table, SolveOptions< T > options, Monitor< T > monitor ) {
+			this.limit_ = limit;
+			this.table_ = table;
+			this.options_ = options;
+			this.monitor_ = monitor;
+		}
+
+		public Pack< T > call() {
+			final long limit = this.limit_;
+			final Table< T > table = this.table_;
+			final Monitor< T > monitor = this.monitor_;
+			ArrayList< Callable< Pack< T > > > engines = new ArrayList< Callable< Pack< T > > >();
+			HashSet< Callable< Pack< T > > > exact = new HashSet< Callable< Pack< T > > >();
+
+			// table engines run only if they may finish in time, and all of
+			// them together fit in memory
+			final SolveOptions.Storage storage = Planner.getStorage( limit, table, this.options_ );
+			final double allowed = Planner.getAllowedNanos( this.options_ );
+			// without a timeout, race no longer than an exact search of pick
+			final long deadline = System.nanoTime() + ( long )allowed;
+			monitor.setDeadline( deadline );
+			long memory = Planner.getFreeMemory();
+			for( int e = Planner.MEET_IN_THE_MIDDLE; e <= Planner.BALANCED; ++e ) {
+				final long steps = Planner.getSteps( e, limit, table, storage );
+				final long bytes = Planner.getMemory( e, limit, table, storage );
+				if( steps < 0L || Planner.getCost( e ) * steps > allowed || bytes > memory ) {
+					continue;
+				}
+				memory -= bytes;
+				Callable< Pack< T > > engine = this.createEngine( e, storage );
+				engines.add( engine );
+				exact.add( engine );
+			}
+			Callable< Pack< T > > search = new Callable< Pack< T > >() {
+				@Override
+				public Pack< T > call() {
+					return new DepthFirstSearch< T >( limit, table, monitor ).call();
+				}
+			};
+			engines.add( search );
+			exact.add( search );
+			final SplittableRandom random = Pack.createRandom( this.options_ );
+			engines.add( new Callable< Pack< T > >() {
+				@Override
+				public Pack< T > call() {
+					Pack< T > result = new GeneticAlgorithm< T >( limit, table, random, monitor ).call();
+					return new LocalSearch< T >( limit, table, monitor ).call( result );
+				}
+			} );
+
+			ExecutorService pool = Executors.newFixedThreadPool( engines.size() );
+			ExecutorCompletionService< Pack< T > > completion = new ExecutorCompletionService< Pack< T > >( pool );
+			HashMap< Future< Pack< T > >, Callable< Pack< T > > > futures = new HashMap< Future< Pack< T > >, Callable< Pack< T > > >();
+			Pack< T > best = null;
+			Throwable failure = null;
+			try {
+				for( Callable< Pack< T > > engine : engines ) {
+					futures.put( completion.submit( engine ), engine );
+				}
+				for( int i = 0; i < engines.size(); ++i ) {
+					// engines which miss the deadline are cancelled
+					Future< Pack< T > > future = completion.poll( Math.max( deadline + Portfolio.GRACE_NANOS - System.nanoTime(), 0L ), TimeUnit.NANOSECONDS );
+					if( future == null ) {
+						break;
+					}
+					Pack< T > result;
+					try {
+						result = future.get();
+					} catch( ExecutionException e ) {
+						// other engines may still succeed, e.g. if one runs out
+						// of memory
+						failure = e.getCause();
+						continue;
+					}
+					if( best == null || result.getScore() > best.getScore() ) {
+						best = result;
+					}
+					if( best.getScore() == limit || ( exact.contains( futures.get( future ) ) && !monitor.isExpired() ) ) {
+						break;
+					}
+				}
+			} catch( InterruptedException e ) {
+				Thread.currentThread().interrupt();
+			} finally {
+				monitor.cancel();
+				for( Future< Pack< T > > future : futures.keySet() ) {
+					future.cancel( true );
+				}
+				pool.shutdownNow();
+			}
+			if( best == null && failure != null ) {
+				throw new RuntimeException( failure );
+			}
+			return ( best == null ) ? new Pack< T >() : best;
+		}
+
+		private Callable< Pack< T > > createEngine( final int engine, final SolveOptions.Storage storage ) {
+			final long limit = this.limit_;
+			final Table< T > table = this.table_;
+			final Monitor< T > monitor = this.monitor_;
+			return new Callable< Pack< T > >() {
+				@Override
+				public Pack< T > call() {
+					if( engine == Planner.MEET_IN_THE_MIDDLE ) {
+						return new MeetInTheMiddle< T >( limit, table, monitor ).call();
+					} else if( engine == Planner.BALANCED ) {
+						return new BalancedDynamicProgramming< T >( limit, table, monitor ).call();
+					}
+					DynamicProgramming< T > dp = new DynamicProgramming< T >( limit, table, monitor, storage, null );
+					try {
+						return dp.call();
+					} finally {
+						dp.close();
+					}
+				}
+			};
+		}
+
+	}
+
+	public static< T > Pack< T > binarySearch( Long limit, AbstractMap< T, Long > items ) {
+		return ( Pack.needSearch( limit, items ) ) ? new BinarySearch< T >( limit, items ).call() : new Pack< T >( limit, new ArrayList< T >( items.keySet() ) );
+	}
+
+	/**
+	 * Back-end to pick using BFS over sparse reachable sums.
+	 * Every item extends all sums reached so far, and each sum keeps the
+	 * item which reaches it first. The complexity is O(n * s), where
+	 * <code>s</code> is the amount of distinct sums not greater than limit,
+	 * so it suits large and irregular values which make
+	 * {@link #dynamicProgramming} too big.
+	 *
+	 * @param limit maximum value of combinations
+	 * @param items object value table
+	 * @return solution
+	 */
+	public static< T > Pack< T > breadthFirstSearch( Long limit, AbstractMap< T, Long > items ) {
+		return Pack.breadthFirstSearch( limit, items, new SolveOptions< T >() );
+	}
+
+	/**
+	 * Back-end to pick using BFS over sparse reachable sums, bounded by
+	 * options. The budget counts applied items, and the items not applied
+	 * yet are left out once it is exceeded.
+	 *
+	 * @param limit maximum value of combinations
+	 * @param items object value table
+	 * @param options timeout, budget and listener
+	 * @return best solution found
+	 */
+	public static< T > Pack< T > breadthFirstSearch( Long limit, AbstractMap< T, Long > items, SolveOptions< T > options ) {
+		Monitor< T > monitor = new Monitor< T >( options );
+		Reduction< T > r = new Reduction< T >( limit, items, monitor );
+		return ( r.isSolved() ) ? r.getBest() : r.merge( new SumSet< T >( r.getLimit(), r.getTable(), monitor ).call() );
+	}
+
+	/**
+	 * Back-end to pick using DFS.
+	 *
+	 * @param limit maximum value of combinations
+	 * @param items object value table
+	 * @return solution
+	 */
+	public static< T > Pack< T > depthFirstSearch( Long limit, AbstractMap< T, Long > items ) {
+		return Pack.depthFirstSearch( limit, items, new SolveOptions< T >() );
+	}
+
+	/**
+	 * Back-end to pick using DFS, bounded by options.
+	 * The budget counts searched nodes.
+	 *
+	 * @param limit maximum value of combinations
+	 * @param items object value table
+	 * @param options timeout, budget and listener
+	 * @return best solution found
+	 */
+	public static< T > Pack< T > depthFirstSearch( Long limit, AbstractMap< T, Long > items, SolveOptions< T > options ) {
+		Monitor< T > monitor = new Monitor< T >( options );
+		Reduction< T > r = new Reduction< T >( limit, items, monitor );
+		return ( r.isSolved() ) ? r.getBest() : r.merge( new DepthFirstSearch< T >( r.getLimit(), r.getTable(), monitor ).call() );
+	}
+
+	/**
+	 * Back-end to pick using DFS with a transposition table.
+	 *
+	 * @param limit maximum value of combinations
+	 * @param items object value table
+	 * @return solution
+	 */
+	public static< T > Pack< T > memoizedSearch( Long limit, AbstractMap< T, Long > items ) {
+		return Pack.memoizedSearch( limit, items, new SolveOptions< T >() );
+	}
+
+	/**
+	 * Back-end to pick using DFS with a transposition table, bounded by
+	 * options. Visited pairs of item index and partial sum are not searched
+	 * again, which pays off when many items share the same value. The table
+	 * is capped by {@link SolveOptions#getTableMemory()}. The budget counts
+	 * searched nodes.
+	 *
+	 * @param limit maximum value of combinations
+	 * @param items object value table
+	 * @param options timeout, budget, listener and table memory
+	 * @return best solution found
+	 */
+	public static< T > Pack< T > memoizedSearch( Long limit, AbstractMap< T, Long > items, SolveOptions< T > options ) {
+		Monitor< T > monitor = new Monitor< T >( options );
+		Reduction< T > r = new Reduction< T >( limit, items, monitor );
+		if( r.isSolved() ) {
+			return r.getBest();
 		}
+		TranspositionTable memo = TranspositionTable.create( r.getLimit(), r.getTable().size(), options );
+		return r.merge( new DepthFirstSearch< T >( r.getLimit(), r.getTable(), monitor, memo ).call() );
+	}
 
-		private Long limit_;
-		private AbstractMap< T, Long > table_;
-		private ArrayList< Cell< T > > population_;
-
-		public GeneticAlgorithm( Long limit, AbstractMap< T, Long > items ) {
-			this.limit_ = limit;
-			this.table_ = items;
+	/**
+	 * Back-end to pick using parallel DFS.
+	 * The search tree is shared by a fork-join pool, and every thread prunes
+	 * against the best score found by any of them.
+	 *
+	 * @param limit maximum value of combinations
+	 * @param items object value table
+	 * @param parallelism amount of threads
+	 * @return solution
+	 * @throws IllegalArgumentException if parallelism is not positive
+	 */
+	public static< T > Pack< T > parallelSearch( Long limit, AbstractMap< T, Long > items, int parallelism ) {
+		return Pack.parallelSearch( limit, items, parallelism, new SolveOptions< T >() );
+	}
 
-			this.population_ = new ArrayList< Cell< T > >();
-			for( int i = 0; i < items.size(); ++i ) {
-				this.population_.add( this.generatePopulation() );
-			}
-			Collections.sort( this.population_ );
+	/**
+	 * Back-end to pick using parallel DFS, bounded by options.
+	 * The budget counts searched nodes of all threads.
+	 *
+	 * @param limit maximum value of combinations
+	 * @param items object value table
+	 * @param parallelism amount of threads
+	 * @param options timeout, budget and listener
+	 * @return best solution found
+	 * @throws IllegalArgumentException if parallelism is not positive
+	 */
+	public static< T > Pack< T > parallelSearch( Long limit, AbstractMap< T, Long > items, int parallelism, SolveOptions< T > options ) {
+		if( parallelism <= 0 ) {
+			throw new IllegalArgumentException( "Parallelism is not positive: " + parallelism );
 		}
+		Monitor< T > monitor = new Monitor< T >( options );
+		Reduction< T > r = new Reduction< T >( limit, items, monitor );
+		return ( r.isSolved() ) ? r.getBest() : r.merge( new ParallelSearch< T >( r.getLimit(), r.getTable(), parallelism, monitor ).call() );
+	}
 
-		public Pack< T > call() {
-			while( !this.canStop() ) {
-				this.crossOver();
-				this.mutation();
-				Collections.sort( this.population_ );
-				this.population_.subList( this.table_.size(), this.population_.size() ).clear();
-			}
+	/**
+	 * Back-end to pick using bitset dynamic programming.
+	 * The complexity is O(n * limit / gcd / 64), and it needs about five
+	 * bytes per state.
+	 *
+	 * @param limit maximum value of combinations
+	 * @param items object value table
+	 * @return solution
+	 * @throws IllegalArgumentException if there are too many states
+	 */
+	public static< T > Pack< T > dynamicProgramming( Long limit, AbstractMap< T, Long > items ) {
+		return Pack.dynamicProgramming( limit, items, new SolveOptions< T >() );
+	}
 
-			Cell< T > survivor = this.population_.get( 0 );
-			Pack< T > result = new Pack< T >( survivor.getValue(), new ArrayList< T >() );
-			for( Entry< T, Boolean > e : survivor.getTable().entrySet() ) {
-				if( e.getValue() ) {
-					result.getItems().add( e.getKey() );
-				}
-			}
-			return result;
+	/**
+	 * Back-end to pick using bitset dynamic programming, bounded by options.
+	 * The budget counts applied items, and the items not applied yet are
+	 * left out once it is exceeded.
+	 *
+	 * @param limit maximum value of combinations
+	 * @param items object value table
+	 * @param options timeout, budget and listener
+	 * @return best solution found
+	 * @throws IllegalArgumentException if there are too many states
+	 */
+	public static< T > Pack< T > dynamicProgramming( Long limit, AbstractMap< T, Long > items, SolveOptions< T > options ) {
+		Monitor< T > monitor = new Monitor< T >( options );
+		Reduction< T > r = new Reduction< T >( limit, items, monitor );
+		if( r.isSolved() ) {
+			return r.getBest();
 		}
-
-		private Boolean canStop() {
-			Cell< T > head = this.population_.get( 0 );
-			Cell< T > tail = this.population_.get( this.population_.size() - 1 );
-			return head.getValue().equals( tail.getValue() );
+		DynamicProgramming< T > dp = new DynamicProgramming< T >( r.getLimit(), r.getTable(), monitor, options.getStorage(), null );
+		try {
+			return r.merge( dp.call() );
+		} finally {
+			dp.close();
 		}
+	}
 
-		private void crossOver() {
-			final int length = this.population_.size();
-			for( int i = 0; i < length; ++i ) {
-				Cell< T > new1 = new Cell< T >( this.population_.get( i ) );
-				Cell< T > new2 = new Cell< T >( this.population_.get( this.selectParent() ) );
-				for( Entry< T, Long > e : this.table_.entrySet() ) {
-					if( new1.getTable().get( e.getKey() ) == new2.getTable().get( e.getKey() ) ) {
-						continue;
-					}
-					if( !new1.canToggle( e.getKey(), e.getValue(), this.limit_ ) || !new2.canToggle( e.getKey(), e.getValue(), this.limit_ ) ) {
-						continue;
-					}
-					if( Math.random() < 0.5 ) {
-						new1.toggle( e.getKey(), e.getValue() );
-						new2.toggle( e.getKey(), e.getValue() );
-					}
-				}
-				this.population_.add( new1 );
-				this.population_.add( new2 );
-			}
-		}
+	/**
+	 * Back-end to pick by racing engines on their own threads.
+	 * Branch and bound, heuristic algorithm, and every table engine which
+	 * may finish in time and fits in memory start at once. The first exact
+	 * engine to finish, or the first engine to fill the limit, wins and the
+	 * others are cancelled. The race takes no longer than the exact search of
+	 * {@link #pick(Long, AbstractMap)}, then the best result is returned.
+	 *
+	 * @param limit maximum value of combinations
+	 * @param items object value table
+	 * @return solution
+	 */
+	public static< T > Pack< T > portfolio( Long limit, AbstractMap< T, Long > items ) {
+		return Pack.portfolio( limit, items, new SolveOptions< T >() );
+	}
 
-		private Cell< T > generatePopulation() {
-			HashMap< T, Boolean > cell = new HashMap< T, Boolean >();
-			Long sum = 0L;
-			for( Entry< T, Long > e : this.table_.entrySet() ) {
-				if( e.getValue() + sum >= this.limit_ || Math.random() * 2 < 1.0 ) {
-					cell.put( e.getKey(), false );
-				} else {
-					cell.put( e.getKey(), true );
-					sum += e.getValue();
-				}
-			}
-			return new Cell< T >( cell, sum );
+	/**
+	 * Back-end to pick by racing engines, bounded by options. At the
+	 * deadline, the best result of all engines is returned. The budget is
+	 * shared by all engines.
+	 *
+	 * @param limit maximum value of combinations
+	 * @param items object value table
+	 * @param options timeout, budget, listener and seed
+	 * @return best solution found
+	 */
+	public static< T > Pack< T > portfolio( Long limit, AbstractMap< T, Long > items, SolveOptions< T > options ) {
+		Monitor< T > monitor = new Monitor< T >( options );
+		Reduction< T > r = new Reduction< T >( limit, items, monitor );
+		if( r.isSolved() ) {
+			return r.getBest();
 		}
+		return r.merge( new Portfolio< T >( r.getLimit(), r.getTable(), options, monitor ).call() );
+	}
 
-		private void mutation() {
-			final int length = this.population_.size();
-			for( int i = 0; i < length; ++i ) {
-				Cell< T > cell = this.population_.get( i );
-				for( Entry< T, Long > e : this.table_.entrySet() ) {
-					if( cell.canToggle( e.getKey(), e.getValue(), this.limit_) && Math.random() * this.table_.size() < 1.0 ) {
-						cell.toggle( e.getKey(), e.getValue() );
-					}
-				}
-			}
+	/**
+	 * Improve a solution by local search, i.e. 1-for-1, 2-for-1 and 1-for-2
+	 * exchanges between picked and remaining items, until nothing fills
+	 * more. It suits the results of heuristic algorithms, which are often
+	 * one exchange away from a better fill.
+	 *
+	 * @param limit maximum value of combinations
+	 * @param items object value table
+	 * @param pack a solution of items
+	 * @return improved solution, or pack if it can not be improved
+	 * @throws IllegalArgumentException if pack has an item not in items
+	 */
+	public static< T > Pack< T > refine( Long limit, AbstractMap< T, Long > items, Pack< T > pack ) {
+		return new LocalSearch< T >( limit, new Table< T >( items ), new Monitor< T >( new SolveOptions< T >() ) ).call( pack );
+	}
+
+	/**
+	 * Back-end to pick using Pisinger's balanced dynamic programming.
+	 * It takes O(n * r) time and memory, where r is the largest value, so
+	 * it suits many small items whatever the limit is.
+	 *
+	 * @param limit maximum value of combinations
+	 * @param items object value table
+	 * @return solution
+	 * @throws IllegalArgumentException if the largest value is too large
+	 */
+	public static< T > Pack< T > balancedDynamicProgramming( Long limit, AbstractMap< T, Long > items ) {
+		return Pack.balancedDynamicProgramming( limit, items, new SolveOptions< T >() );
+	}
+
+	/**
+	 * Back-end to pick using Pisinger's balanced dynamic programming,
+	 * bounded by options. The budget counts items.
+	 *
+	 * @param limit maximum value of combinations
+	 * @param items object value table
+	 * @param options timeout, budget and listener
+	 * @return best solution found
+	 * @throws IllegalArgumentException if the largest value is too large
+	 */
+	public static< T > Pack< T > balancedDynamicProgramming( Long limit, AbstractMap< T, Long > items, SolveOptions< T > options ) {
+		Monitor< T > monitor = new Monitor< T >( options );
+		Reduction< T > r = new Reduction< T >( limit, items, monitor );
+		if( r.isSolved() ) {
+			return r.getBest();
 		}
+		return r.merge( new BalancedDynamicProgramming< T >( r.getLimit(), r.getTable(), monitor ).call() );
+	}
 
-		/**
-		 * Select parent index.
-		 * <pre>
-		 * N := total size
-		 *
-		 * Plain:
-		 * int i = 0;
-		 * for( ; Math.random() * ( N - i ) >= 2.0; ++i );
-		 * return i;
-		 *
-		 * PDF:
-		 * P( X = i ) = 2(N-1-i)/(N(N-1))
-		 *
-		 * CDF:
-		 * P( X <= i ) = i(2N-1-i)/(N(N-1)) = C
-		 * b = 2N-1
-		 * d = b^2 - 4CN(N-1)
-		 * i = (b-d^0.5)/2
-		 * </pre>
-		 */
-		private int selectParent() {
-			int n = this.table_.size();
-			int b = 2 * n - 1;
-			double c = Math.random();
-			double d = ( b * b - 1 ) * ( 1 - c ) + 1;
-			double k = ( b - Math.sqrt( d ) ) / 2;
-			return ( int )Math.floor( k );
+	/**
+	 * Back-end to pick using a fully polynomial-time approximation scheme.
+	 * The score is at least <code>1 - epsilon</code> of the optimum, in
+	 * O(n / epsilon) time and memory.
+	 *
+	 * @param limit maximum value of combinations
+	 * @param items object value table
+	 * @param epsilon relative error
+	 * @return solution
+	 * @throws IllegalArgumentException if epsilon is not in (0, 1)
+	 */
+	public static< T > Pack< T > approximate( Long limit, AbstractMap< T, Long > items, double epsilon ) {
+		return Pack.approximate( limit, items, epsilon, new SolveOptions< T >() );
+	}
+
+	/**
+	 * Back-end to pick using a fully polynomial-time approximation scheme,
+	 * bounded by options. The budget counts items, and the guarantee only
+	 * holds if the budget is not exceeded.
+	 *
+	 * @param limit maximum value of combinations
+	 * @param items object value table
+	 * @param epsilon relative error
+	 * @param options timeout, budget and listener
+	 * @return best solution found
+	 * @throws IllegalArgumentException if epsilon is not in (0, 1)
+	 */
+	public static< T > Pack< T > approximate( Long limit, AbstractMap< T, Long > items, double epsilon, SolveOptions< T > options ) {
+		if( !( epsilon > 0.0 && epsilon < 1.0 ) ) {
+			throw new IllegalArgumentException( "Epsilon is not in (0, 1): " + epsilon );
 		}
+		Monitor< T > monitor = new Monitor< T >( options );
+		Reduction< T > r = new Reduction< T >( limit, items, monitor );
+		if( r.isSolved() ) {
+			return r.getBest();
+		}
+		// the greedy solution is a lower bound of the optimum, and at least
+		// half of the limit, so there are at most 2 / epsilon intervals
+		final long delta = Math.max( 1L, ( long )( epsilon * r.getBest().getScore() ) );
+		return r.merge( new Approximation< T >( r.getLimit(), r.getTable(), delta, monitor ).call() );
+	}
 
+	/**
+	 * Back-end to pick using island model heuristic algorithm.
+	 * Each island runs in its own thread, and the best cells migrate
+	 * between islands periodically.
+	 *
+	 * @param limit maximum value of combinations
+	 * @param items object value table
+	 * @param islands amount of populations, usually the amount of cores
+	 * @return solution
+	 * @throws IllegalArgumentException if islands is not positive
+	 */
+	public static< T > Pack< T > parallelGeneticAlgorithm( Long limit, AbstractMap< T, Long > items, int islands ) {
+		return Pack.parallelGeneticAlgorithm( limit, items, islands, new SplittableRandom() );
 	}
 
-	public static< T > Pack< T > binarySearch( Long limit, AbstractMap< T, Long > items ) {
-		return ( Pack.needSearch( limit, items ) ) ? new BinarySearch< T >( limit, items ).call() : new Pack< T >( limit, new ArrayList< T >( items.keySet() ) );
+	/**
+	 * Back-end to pick using island model heuristic algorithm.
+	 * Runs with the same seed give the same result.
+	 *
+	 * @param limit maximum value of combinations
+	 * @param items object value table
+	 * @param islands amount of populations, usually the amount of cores
+	 * @param seed random seed
+	 * @return solution
+	 * @throws IllegalArgumentException if islands is not positive
+	 */
+	public static< T > Pack< T > parallelGeneticAlgorithm( Long limit, AbstractMap< T, Long > items, int islands, long seed ) {
+		return Pack.parallelGeneticAlgorithm( limit, items, islands, new SplittableRandom( seed ) );
 	}
 
 	/**
-	 * Back-end to pick using BFS.
+	 * Back-end to pick using island model heuristic algorithm.
+	 * Every island gets a stream split from <code>random</code>.
 	 *
 	 * @param limit maximum value of combinations
 	 * @param items object value table
+	 * @param islands amount of populations, usually the amount of cores
+	 * @param random random stream
 	 * @return solution
+	 * @throws IllegalArgumentException if islands is not positive
 	 */
-	public static< T > Pack< T > breadthFirstSearch( Long limit, AbstractMap< T, Long > items ) {
-		if( Pack.needSearch( limit, items ) ) {
-			return new Pack< T >( limit, new ArrayList< T >( items.keySet() ) );
-		}
+	public static< T > Pack< T > parallelGeneticAlgorithm( Long limit, AbstractMap< T, Long > items, int islands, SplittableRandom random ) {
+		return Pack.parallelGeneticAlgorithm( limit, items, islands, random, new Monitor< T >( new SolveOptions< T >() ) );
+	}
 
-		ArrayList< Pack< T > > table = new ArrayList< Pack< T > >();
-		table.add( new Pack< T >() );
+	/**
+	 * Back-end to pick using island model heuristic algorithm, bounded by
+	 * options. The budget counts generations of all islands.
+	 *
+	 * @param limit maximum value of combinations
+	 * @param items object value table
+	 * @param islands amount of populations, usually the amount of cores
+	 * @param options timeout, budget, listener and seed
+	 * @return best solution found
+	 * @throws IllegalArgumentException if islands is not positive
+	 */
+	public static< T > Pack< T > parallelGeneticAlgorithm( Long limit, AbstractMap< T, Long > items, int islands, SolveOptions< T > options ) {
+		return Pack.parallelGeneticAlgorithm( limit, items, islands, Pack.createRandom( options ), new Monitor< T >( options ) );
+	}
 
-		for( Entry< T, Long> e : items.entrySet() ) {
-			ArrayList< Pack< T > > tmp = new ArrayList< Pack< T > >();
-			for( Pack< T > p : table ) {
-				Long newSize = p.getScore() + e.getValue();
-				if( newSize <= limit ) {
-					ArrayList< T > newDirs = new ArrayList< T >( p.getItems() );
-					newDirs.add( e.getKey() );
-					tmp.add( new Pack< T >( newSize, newDirs ) );
-				}
-			}
-			table.addAll(table.size(), tmp);
+	private static< T > Pack< T > parallelGeneticAlgorithm( Long limit, AbstractMap< T, Long > items, int islands, SplittableRandom random, Monitor< T > monitor ) {
+		if( islands <= 0 ) {
+			throw new IllegalArgumentException( "Islands are not positive: " + islands );
 		}
+		Reduction< T > r = new Reduction< T >( limit, items, monitor );
+		return ( r.isSolved() ) ? r.getBest() : r.merge( new IslandGeneticAlgorithm< T >( r.getLimit(), r.getTable(), islands, random, monitor ).call() );
+	}
 
-		Pack< T > max = new Pack< T >();
-		for( Pack< T > p : table ) {
-			if( p.getScore() >= max.getScore() ) {
-				max = p;
-			}
-		}
-		return max;
+	/**
+	 * Back-end to pick using heuristic algorithm.
+	 * The complexity is O(2^n).
+	 *
+	 * @param limit maximum value of combinations
+	 * @param items object value table
+	 * @return solution
+	 */
+	public static< T > Pack< T > geneticAlgorithm( Long limit, AbstractMap< T, Long > items ) {
+		return Pack.geneticAlgorithm( limit, items, new SplittableRandom() );
 	}
 
 	/**
-	 * Back-end to pick using DFS.
+	 * Back-end to pick using heuristic algorithm.
+	 * Runs with the same seed give the same result.
 	 *
 	 * @param limit maximum value of combinations
 	 * @param items object value table
+	 * @param seed random seed
 	 * @return solution
 	 */
-	public static< T > Pack< T > depthFirstSearch( Long limit, AbstractMap< T, Long > items ) {
-		return ( Pack.needSearch( limit, items ) ) ? new DepthFirstSearch< T >( limit, items ).call( 0, new Pack< T >() ) : new Pack< T >( limit, new ArrayList< T >( items.keySet() ) );
+	public static< T > Pack< T > geneticAlgorithm( Long limit, AbstractMap< T, Long > items, long seed ) {
+		return Pack.geneticAlgorithm( limit, items, new SplittableRandom( seed ) );
 	}
 
 	/**
 	 * Back-end to pick using heuristic algorithm.
-	 * The complexity is O(2^n).
+	 * The random stream must not be shared with other threads.
 	 *
 	 * @param limit maximum value of combinations
 	 * @param items object value table
+	 * @param random random stream
 	 * @return solution
 	 */
-	public static< T > Pack< T > geneticAlgorithm( Long limit, AbstractMap< T, Long > items ) {
-		return ( Pack.needSearch( limit, items ) ) ? new GeneticAlgorithm< T >( limit, items ).call() : new Pack< T >( limit, new ArrayList< T >( items.keySet() ) );
+	public static< T > Pack< T > geneticAlgorithm( Long limit, AbstractMap< T, Long > items, SplittableRandom random ) {
+		return Pack.geneticAlgorithm( limit, items, random, new Monitor< T >( new SolveOptions< T >() ) );
+	}
+
+	/**
+	 * Back-end to pick using heuristic algorithm, bounded by options.
+	 * The budget counts generations.
+	 *
+	 * @param limit maximum value of combinations
+	 * @param items object value table
+	 * @param options timeout, budget, listener and seed
+	 * @return best solution found
+	 */
+	public static< T > Pack< T > geneticAlgorithm( Long limit, AbstractMap< T, Long > items, SolveOptions< T > options ) {
+		return Pack.geneticAlgorithm( limit, items, Pack.createRandom( options ), new Monitor< T >( options ) );
+	}
+
+	private static< T > Pack< T > geneticAlgorithm( Long limit, AbstractMap< T, Long > items, SplittableRandom random, Monitor< T > monitor ) {
+		Reduction< T > r = new Reduction< T >( limit, items, monitor );
+		return ( r.isSolved() ) ? r.getBest() : r.merge( new GeneticAlgorithm< T >( r.getLimit(), r.getTable(), random, monitor ).call() );
+	}
+
+	private static< T > SplittableRandom createRandom( SolveOptions< T > options ) {
+		return ( options.getSeed() == null ) ? new SplittableRandom() : new SplittableRandom( options.getSeed() );
+	}
+
+	private static long gcd( long a, long b ) {
+		while( b != 0L ) {
+			long tmp = a % b;
+			a = b;
+			b = tmp;
+		}
+		return a;
 	}
 
 	private static< T > Boolean needSearch( Long limit, AbstractMap< T, Long>  items ) {
@@ -541,21 +3767,188 @@ public class Pack< T > implements Comparable< Pack< T > > {
 		return sum > limit;
 	}
 
+	/**
+	 * Back-end to pick using meet-in-the-middle.
+	 * The complexity is O(n * 2^(n/2)), and so is the memory.
+	 *
+	 * @param limit maximum value of combinations
+	 * @param items object value table
+	 * @return solution
+	 * @throws IllegalArgumentException if there are more than 60 items
+	 */
+	public static< T > Pack< T > meetInTheMiddle( Long limit, AbstractMap< T, Long > items ) {
+		Monitor< T > monitor = new Monitor< T >( new SolveOptions< T >() );
+		Reduction< T > r = new Reduction< T >( limit, items, monitor );
+		return ( r.isSolved() ) ? r.getBest() : r.merge( new MeetInTheMiddle< T >( r.getLimit(), r.getTable(), monitor ).call() );
+	}
+
 	/**
 	 * Main pick function.
-	 * If table size is greater then or equal to 16, it will use heuristic
-	 * algorithm.
+	 * Meet-in-the-middle costs about <code>2^(n/2)</code> steps, and dynamic
+	 * programming costs <code>n * limit / gcd / 64</code> steps, where
+	 * <code>n</code> counts items of the same value as groups. The time of a
+	 * step is measured from previous picks. The cheaper one is used if it
+	 * fits in half of the free memory and finishes in 10 seconds, or in the
+	 * timeout of options. Otherwise branch and bound searches a few million
+	 * nodes, and heuristic algorithm continues if it does not finish.
 	 *
 	 * @param limit maximum value of combinations
 	 * @param items object value table
 	 * @return solution
 	 */
 	public static< T > Pack< T > pick( Long limit, AbstractMap< T, Long > items ) {
-		if( items.size() < 26 ) {
-			return Pack.binarySearch( limit, items );
-		} else {
-			return Pack.geneticAlgorithm( limit, items );
+		return Pack.pick( limit, items, new SolveOptions< T >() );
+	}
+
+	/**
+	 * Main pick function, bounded by options.
+	 * Selects algorithm as {@link #pick(Long, AbstractMap)}. Meet-in-the-middle
+	 * is only used if it is estimated to finish in time, so it does not
+	 * watch the options.
+	 *
+	 * @param limit maximum value of combinations
+	 * @param items object value table
+	 * @param options timeout, budget, listener and seed
+	 * @return best solution found
+	 */
+	public static< T > Pack< T > pick( Long limit, AbstractMap< T, Long > items, SolveOptions< T > options ) {
+		Picker< T > picker = new Picker< T >( limit, items );
+		try {
+			return picker.call( options );
+		} finally {
+			picker.close();
+		}
+	}
+
+	/**
+	 * <p>Picks repeatedly from a shrinking set of items, e.g. one disc after
+	 * another.</p>
+	 * <p>Items are sorted once. Removing picked items compacts the sorted
+	 * arrays in one pass, and dynamic programming reuses its buffers, so
+	 * later picks skip the setup from the map. A buffer is only reallocated
+	 * if it is too small, and the old one is released first.</p>
+	 * <p>Call {@link #close()} once done, so buffers out of the heap do not
+	 * wait for the garbage collector.</p>
+	 */
+	public static class Picker< T > {
+
+		private long limit_;
+		private Table< T > table_;
+		private DynamicProgramming< T > previous_;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param limit maximum value of combinations
+		 * @param items object value table, which is copied
+		 */
+		public Picker( Long limit, AbstractMap< T, Long > items ) {
+			this.limit_ = limit;
+			this.table_ = new Table< T >( items );
+			this.table_.dropAbove( limit );
+			this.previous_ = null;
+		}
+
+		/**
+		 * Pick from the remaining items.
+		 *
+		 * @return solution
+		 */
+		public Pack< T > call() {
+			return this.call( new SolveOptions< T >() );
+		}
+
+		/**
+		 * Pick from the remaining items, bounded by options. The algorithm is
+		 * selected as {@link Pack#pick(Long, AbstractMap)}.
+		 *
+		 * @param options timeout, budget, listener and seed
+		 * @return best solution found
+		 */
+		public Pack< T > call( SolveOptions< T > options ) {
+			Monitor< T > monitor = new Monitor< T >( options );
+			Reduction< T > r = new Reduction< T >( this.limit_, this.table_, monitor );
+			if( r.isSolved() ) {
+				return r.getBest();
+			}
+			final long limit = r.getLimit();
+			final Table< T > table = r.getTable();
+			final int engine = Planner.choose( limit, table, options );
+			final SolveOptions.Storage storage = Planner.getStorage( limit, table, options );
+			if( engine == Planner.SEARCH ) {
+				return r.merge( this.search( limit, table, options, monitor ) );
+			}
+
+			final long begin = System.nanoTime();
+			Pack< T > result;
+			if( engine == Planner.MEET_IN_THE_MIDDLE ) {
+				result = new MeetInTheMiddle< T >( limit, table, monitor ).call();
+			} else if( engine == Planner.BALANCED ) {
+				result = new BalancedDynamicProgramming< T >( limit, table, monitor ).call();
+			} else {
+				this.previous_ = new DynamicProgramming< T >( limit, table, monitor, storage, this.previous_ );
+				result = this.previous_.call();
+			}
+			if( !monitor.isExpired() ) {
+				Planner.record( engine, Planner.getSteps( engine, limit, table, storage ), System.nanoTime() - begin );
+			}
+			return r.merge( result );
+		}
+
+		/**
+		 * Branch and bound with a node budget, then heuristic algorithm if
+		 * the search is not finished. Both use all cores, and the result of
+		 * heuristic algorithm is polished by local search.
+		 */
+		private Pack< T > search( long limit, Table< T > table, SolveOptions< T > options, Monitor< T > monitor ) {
+			final int cores = Runtime.getRuntime().availableProcessors();
+			monitor.beginStage( Planner.SEARCH_NODES );
+			Pack< T > result = ( cores > 1 ) ? new ParallelSearch< T >( limit, table, cores, monitor ).call() : new DepthFirstSearch< T >( limit, table, monitor ).call();
+			final boolean finished = !monitor.isExpired();
+			monitor.endStage();
+			if( finished || monitor.isExpired() ) {
+				return result;
+			}
+			Pack< T > heuristic = ( cores > 1 ) ? new IslandGeneticAlgorithm< T >( limit, table, cores, Pack.createRandom( options ), monitor ).call() : new GeneticAlgorithm< T >( limit, table, Pack.createRandom( options ), monitor ).call();
+			if( heuristic.getScore() > result.getScore() ) {
+				result = heuristic;
+			}
+			return new LocalSearch< T >( limit, table, monitor ).call( result );
+		}
+
+		/**
+		 * Release buffers of dynamic programming, e.g. temporary files of
+		 * {@link SolveOptions.Storage#MAPPED}. Later picks allocate them
+		 * again.
+		 */
+		public void close() {
+			if( this.previous_ != null ) {
+				this.previous_.close();
+				this.previous_ = null;
+			}
+		}
+
+		public boolean isEmpty() {
+			return this.table_.getKeyCount() == 0;
+		}
+
+		/**
+		 * Remove items, e.g. the items of last pick.
+		 * The cost is linear to the amount of remaining items.
+		 *
+		 * @param keys item keys, unknown keys are ignored
+		 */
+		public void remove( Collection< T > keys ) {
+			this.table_.remove( new HashSet< T >( keys ) );
+		}
+
+		/**
+		 * Get the amount of remaining items, items over the limit are not counted.
+		 */
+		public int size() {
+			return this.table_.getKeyCount();
 		}
+
 	}
 	private Long score_;
 	private List< T > items_;
@@ -573,15 +3966,10 @@ public class Pack< T > implements Comparable< Pack< T > > {
 	 * @param score total value of items
 	 * @param items selected objects
 	 */
-	private Pack( long score, List< T > items ) {
+	Pack( long score, List< T > items ) {
 		this.score_ = score;
 		this.items_ = items;
 	}
-	private Pack< T > add( T key, Long value ) {
-		ArrayList< T > tmp = new ArrayList< T >( this.items_ );
-		tmp.add( key );
-		return new Pack< T >( this.score_ + value, tmp );
-	}
 
 	@Override
 	public int compareTo( Pack< T > that ) {
@@ -0,0 +1,84 @@
+/*
+ * PicKing, a file picker.
+ * Copyright (C) 2009  Wei-Cheng Pan <legnaleurc@gmail.com>
+ *
+ * This file is part of PicKing.
+ *
+ * PicKing is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PicKing is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.foolproofproject;
+
+import java.util.AbstractMap;
+
+/**
+ * <p>An engine which picks the maximum combination of objects.</p>
+ * <p>Engines describe what they are good at, so callers can choose by
+ * capabilities as well as by name. Extra engines are discovered by
+ * {@link java.util.ServiceLoader}: list the implementation class in
+ * <code>META-INF/services/org.foolproofproject.PackSolver</code> of a jar
+ * on the class path, and see {@link PackSolvers}.</p>
+ *
+ * @author Wei-Cheng Pan
+ */
+public interface PackSolver {
+
+	/**
+	 * Get the unique name, used to choose this engine.
+	 *
+	 * @return Name.
+	 */
+	String getName();
+
+	/**
+	 * Get the largest limit divided by the GCD of values, i.e. the amount of
+	 * states, this engine supports.
+	 *
+	 * @return Maximum states, or Long.MAX_VALUE if unbounded.
+	 */
+	long getMaxCapacity();
+
+	/**
+	 * Get the largest amount of items this engine supports in reasonable
+	 * time and memory.
+	 *
+	 * @return Maximum items, or Integer.MAX_VALUE if unbounded.
+	 */
+	int getMaxItems();
+
+	/**
+	 * Check if solutions are always optimal, unless the options stop it.
+	 *
+	 * @return true if exact, false if heuristic.
+	 */
+	boolean isExact();
+
+	/**
+	 * Check if this engine uses more than one thread.
+	 *
+	 * @return true if parallel.
+	 */
+	boolean isParallel();
+
+	/**
+	 * Pick the maximum combination.
+	 * Engines which can not be bounded may ignore options.
+	 *
+	 * @param limit maximum value of combinations
+	 * @param items object value table
+	 * @param options timeout, budget, listener and seed
+	 * @return solution
+	 */
+	< T > Pack< T > solve( Long limit, AbstractMap< T, Long > items, SolveOptions< T > options );
+
+}
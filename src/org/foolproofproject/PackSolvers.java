@@ -0,0 +1,213 @@
+/*
+ * PicKing, a file picker.
+ * Copyright (C) 2009  Wei-Cheng Pan <legnaleurc@gmail.com>
+ *
+ * This file is part of PicKing.
+ *
+ * PicKing is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PicKing is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.foolproofproject;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.ServiceLoader;
+
+/**
+ * <p>Registry of {@link PackSolver} engines.</p>
+ * <p>Built-in engines are named after the methods of {@link Pack}, e.g.
+ * <code>dynamicProgramming</code>, and <code>pick</code> chooses among them
+ * automatically. Engines found by {@link ServiceLoader} are added after
+ * them, and replace a built-in engine of the same name.</p>
+ *
+ * @author Wei-Cheng Pan
+ */
+public class PackSolvers {
+
+	/**
+	 * Built-in engine with fixed capabilities.
+	 */
+	private static abstract class Builtin implements PackSolver {
+
+		private String name_;
+		private boolean exact_;
+		private boolean parallel_;
+		private int maxItems_;
+		private long maxCapacity_;
+
+		public Builtin( String name, boolean exact, boolean parallel, int maxItems, long maxCapacity ) {
+			this.name_ = name;
+			this.exact_ = exact;
+			this.parallel_ = parallel;
+			this.maxItems_ = maxItems;
+			this.maxCapacity_ = maxCapacity;
+		}
+
+		@Override
+		public long getMaxCapacity() {
+			return this.maxCapacity_;
+		}
+
+		@Override
+		public int getMaxItems() {
+			return this.maxItems_;
+		}
+
+		@Override
+		public String getName() {
+			return this.name_;
+		}
+
+		@Override
+		public boolean isExact() {
+			return this.exact_;
+		}
+
+		@Override
+		public boolean isParallel() {
+			return this.parallel_;
+		}
+
+		@Override
+		public String toString() {
+			return this.name_;
+		}
+
+	}
+
+	/// Relative error of the approximation engine.
+	private static final double EPSILON = 0.001;
+	private static List< PackSolver > builtins_ = PackSolvers.createBuiltins();
+
+	/**
+	 * Get an engine by name.
+	 *
+	 * @param name engine name
+	 * @return Engine, or null if there is no such engine.
+	 */
+	public static PackSolver get( String name ) {
+		for( PackSolver solver : PackSolvers.getAll() ) {
+			if( solver.getName().equals( name ) ) {
+				return solver;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Get all engines, built-in ones first.
+	 * The class path is searched on every call.
+	 *
+	 * @return Engines.
+	 */
+	public static List< PackSolver > getAll() {
+		LinkedHashMap< String, PackSolver > solvers = new LinkedHashMap< String, PackSolver >();
+		for( PackSolver solver : PackSolvers.builtins_ ) {
+			solvers.put( solver.getName(), solver );
+		}
+		for( PackSolver solver : ServiceLoader.load( PackSolver.class ) ) {
+			solvers.put( solver.getName(), solver );
+		}
+		return new ArrayList< PackSolver >( solvers.values() );
+	}
+
+	private static List< PackSolver > createBuiltins() {
+		final int cores = Runtime.getRuntime().availableProcessors();
+		ArrayList< PackSolver > solvers = new ArrayList< PackSolver >();
+		solvers.add( new Builtin( "pick", false, true, Integer.MAX_VALUE, Long.MAX_VALUE ) {
+			@Override
+			public < T > Pack< T > solve( Long limit, AbstractMap< T, Long > items, SolveOptions< T > options ) {
+				return Pack.pick( limit, items, options );
+			}
+		} );
+		solvers.add( new Builtin( "portfolio", false, true, Integer.MAX_VALUE, Long.MAX_VALUE ) {
+			@Override
+			public < T > Pack< T > solve( Long limit, AbstractMap< T, Long > items, SolveOptions< T > options ) {
+				return Pack.portfolio( limit, items, options );
+			}
+		} );
+		solvers.add( new Builtin( "meetInTheMiddle", true, false, 60, Long.MAX_VALUE ) {
+			@Override
+			public < T > Pack< T > solve( Long limit, AbstractMap< T, Long > items, SolveOptions< T > options ) {
+				return Pack.meetInTheMiddle( limit, items );
+			}
+		} );
+		solvers.add( new Builtin( "dynamicProgramming", true, false, Integer.MAX_VALUE, Integer.MAX_VALUE - 64 ) {
+			@Override
+			public < T > Pack< T > solve( Long limit, AbstractMap< T, Long > items, SolveOptions< T > options ) {
+				return Pack.dynamicProgramming( limit, items, options );
+			}
+		} );
+		solvers.add( new Builtin( "balancedDynamicProgramming", true, false, Integer.MAX_VALUE, ( Integer.MAX_VALUE - 64 ) / 2 ) {
+			@Override
+			public < T > Pack< T > solve( Long limit, AbstractMap< T, Long > items, SolveOptions< T > options ) {
+				return Pack.balancedDynamicProgramming( limit, items, options );
+			}
+		} );
+		solvers.add( new Builtin( "depthFirstSearch", true, false, Integer.MAX_VALUE, Long.MAX_VALUE ) {
+			@Override
+			public < T > Pack< T > solve( Long limit, AbstractMap< T, Long > items, SolveOptions< T > options ) {
+				return Pack.depthFirstSearch( limit, items, options );
+			}
+		} );
+		solvers.add( new Builtin( "memoizedSearch", true, false, Integer.MAX_VALUE, Long.MAX_VALUE ) {
+			@Override
+			public < T > Pack< T > solve( Long limit, AbstractMap< T, Long > items, SolveOptions< T > options ) {
+				return Pack.memoizedSearch( limit, items, options );
+			}
+		} );
+		solvers.add( new Builtin( "parallelSearch", true, true, Integer.MAX_VALUE, Long.MAX_VALUE ) {
+			@Override
+			public < T > Pack< T > solve( Long limit, AbstractMap< T, Long > items, SolveOptions< T > options ) {
+				return Pack.parallelSearch( limit, items, cores, options );
+			}
+		} );
+		solvers.add( new Builtin( "breadthFirstSearch", true, false, Integer.MAX_VALUE, Long.MAX_VALUE ) {
+			@Override
+			public < T > Pack< T > solve( Long limit, AbstractMap< T, Long > items, SolveOptions< T > options ) {
+				return Pack.breadthFirstSearch( limit, items, options );
+			}
+		} );
+		solvers.add( new Builtin( "approximate", false, false, Integer.MAX_VALUE, Long.MAX_VALUE ) {
+			@Override
+			public < T > Pack< T > solve( Long limit, AbstractMap< T, Long > items, SolveOptions< T > options ) {
+				return Pack.approximate( limit, items, PackSolvers.EPSILON, options );
+			}
+		} );
+		solvers.add( new Builtin( "geneticAlgorithm", false, false, Integer.MAX_VALUE, Long.MAX_VALUE ) {
+			@Override
+			public < T > Pack< T > solve( Long limit, AbstractMap< T, Long > items, SolveOptions< T > options ) {
+				return Pack.geneticAlgorithm( limit, items, options );
+			}
+		} );
+		solvers.add( new Builtin( "parallelGeneticAlgorithm", false, true, Integer.MAX_VALUE, Long.MAX_VALUE ) {
+			@Override
+			public < T > Pack< T > solve( Long limit, AbstractMap< T, Long > items, SolveOptions< T > options ) {
+				return Pack.parallelGeneticAlgorithm( limit, items, cores, options );
+			}
+		} );
+		solvers.add( new Builtin( "binarySearch", false, false, Integer.MAX_VALUE, Long.MAX_VALUE ) {
+			@Override
+			public < T > Pack< T > solve( Long limit, AbstractMap< T, Long > items, SolveOptions< T > options ) {
+				return Pack.binarySearch( limit, items );
+			}
+		} );
+		return solvers;
+	}
+
+	private PackSolvers() {
+	}
+
+}
@@ -0,0 +1,98 @@
+/*
+ * PicKing, a file picker.
+ * Copyright (C) 2009  Wei-Cheng Pan <legnaleurc@gmail.com>
+ *
+ * This file is part of PicKing.
+ *
+ * PicKing is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PicKing is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.foolproofproject;
+
+/**
+ * <p>Kernel of bitset dynamic programming, i.e.
+ * <code>bits |= bits &lt;&lt; shift</code> in place.</p>
+ * <p><code>VectorShiftOr</code> does it with SIMD instructions. It needs
+ * the incubating Vector API, i.e.
+ * <code>--add-modules jdk.incubator.vector</code> on both compiling and
+ * running, so it lives in the separate <code>vector</code> source root and
+ * is loaded by reflection. This scalar kernel is used if it is not
+ * available, so the main source builds on Java 8.</p>
+ * For internal usage only.
+ *
+ * @author Wei-Cheng Pan
+ */
+class ShiftOr {
+
+	private static final ShiftOr instance_ = ShiftOr.load();
+
+	/**
+	 * Get the fastest kernel available.
+	 *
+	 * @return Kernel.
+	 */
+	public static ShiftOr get() {
+		return ShiftOr.instance_;
+	}
+
+	private static ShiftOr load() {
+		try {
+			return ( ShiftOr )Class.forName( "org.foolproofproject.VectorShiftOr" ).getDeclaredConstructor().newInstance();
+		} catch( Exception e ) {
+			return new ShiftOr();
+		} catch( LinkageError e ) {
+			// the module is not added
+			return new ShiftOr();
+		}
+	}
+
+	/**
+	 * Apply <code>bits |= bits &lt;&lt; shift</code> in place, bits over
+	 * <code>capacity</code> are not set.
+	 *
+	 * @param bits bitset of at least <code>capacity / 64 + 1</code> words
+	 * @param shift non-negative shift
+	 * @param capacity highest bit to keep
+	 */
+	public void apply( long[] bits, int shift, int capacity ) {
+		this.apply( bits, shift, capacity, capacity >>> 6, shift >>> 6 );
+	}
+
+	/**
+	 * Apply the scalar kernel from word <code>from</code> down to word
+	 * <code>to</code>, which must not be less than <code>shift / 64</code>.
+	 */
+	protected final void apply( long[] bits, int shift, int capacity, int from, int to ) {
+		final int ws = shift >>> 6;
+		final int bs = shift & 63;
+		final int top = capacity >>> 6;
+		for( int k = from; k >= to; --k ) {
+			long src = bits[k - ws] << bs;
+			if( bs != 0 && k - ws > 0 ) {
+				src |= bits[k - ws - 1] >>> ( 64 - bs );
+			}
+			if( k == top ) {
+				src &= -1L >>> ( 63 - ( capacity & 63 ) );
+			}
+			bits[k] |= src;
+		}
+	}
+
+	/**
+	 * Get the name of this kernel, e.g. to report it.
+	 */
+	public String getName() {
+		return "scalar";
+	}
+
+}
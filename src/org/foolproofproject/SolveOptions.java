@@ -0,0 +1,191 @@
+/*
+ * PicKing, a file picker.
+ * Copyright (C) 2009  Wei-Cheng Pan <legnaleurc@gmail.com>
+ *
+ * This file is part of PicKing.
+ *
+ * PicKing is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PicKing is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.foolproofproject;
+
+/**
+ * <p>Options of anytime solving.</p>
+ * <p>A solving can be bounded by a wall-clock timeout, and by a budget of
+ * steps. A step is a generation for heuristic algorithms, a node for
+ * searches, and an item for dynamic programming. Once either bound is
+ * exceeded, the best solution found so far is returned.</p>
+ * <p>A {@link Listener} receives every improved solution while solving.</p>
+ * <p>Large tables of dynamic programming can be kept out of the heap, see
+ * {@link Storage}.</p>
+ *
+ * @author Wei-Cheng Pan
+ */
+public class SolveOptions< T > {
+
+	/**
+	 * Receives improved solutions.
+	 * It may be called from solver threads.
+	 */
+	public static interface Listener< T > {
+		void improved( Pack< T > incumbent );
+	}
+
+	/**
+	 * Where the parent table of dynamic programming lives. It takes four
+	 * bytes per state, i.e. 32 times the reachable-sum bitset, which stays
+	 * on the heap. Without the table, the selection is rebuilt from bitsets
+	 * only, which takes about twice the time of solving.
+	 */
+	public static enum Storage {
+		/// Java heap.
+		HEAP,
+		/// Direct buffers out of the heap, limited by MaxDirectMemorySize.
+		DIRECT,
+		/// A temporary file mapped into memory, paged by the OS.
+		MAPPED,
+		/// No parent table, the selection is rebuilt by divide and conquer.
+		NONE
+	}
+
+	private long timeout_;
+	private long budget_;
+	private Listener< T > listener_;
+	private Long seed_;
+	private Storage storage_;
+	private long tableMemory_;
+
+	/**
+	 * Default constructor.
+	 * No timeout, no budget, no listener, random seed, tables on the heap,
+	 * and automatic memory of transposition tables.
+	 */
+	public SolveOptions() {
+		this.timeout_ = 0L;
+		this.budget_ = 0L;
+		this.listener_ = null;
+		this.seed_ = null;
+		this.storage_ = Storage.HEAP;
+		this.tableMemory_ = 0L;
+	}
+
+	/**
+	 * Get step budget.
+	 *
+	 * @return Maximum steps, or 0 if unlimited.
+	 */
+	public long getBudget() {
+		return this.budget_;
+	}
+
+	/**
+	 * Get improvement listener.
+	 *
+	 * @return Listener, or null if none.
+	 */
+	public Listener< T > getListener() {
+		return this.listener_;
+	}
+
+	/**
+	 * Get random seed.
+	 *
+	 * @return Seed, or null if random.
+	 */
+	public Long getSeed() {
+		return this.seed_;
+	}
+
+	/**
+	 * Get storage of dynamic programming tables.
+	 *
+	 * @return Storage.
+	 */
+	public Storage getStorage() {
+		return this.storage_;
+	}
+
+	/**
+	 * Get memory cap of transposition tables.
+	 *
+	 * @return Maximum bytes, or 0 if automatic.
+	 */
+	public long getTableMemory() {
+		return this.tableMemory_;
+	}
+
+	/**
+	 * Get timeout of each solving.
+	 *
+	 * @return Timeout in milliseconds, or 0 if unlimited.
+	 */
+	public long getTimeout() {
+		return this.timeout_;
+	}
+
+	/**
+	 * Set step budget.
+	 *
+	 * @param budget Maximum steps, or 0 if unlimited
+	 */
+	public void setBudget( long budget ) {
+		this.budget_ = budget;
+	}
+
+	/**
+	 * Set improvement listener.
+	 *
+	 * @param listener Listener, or null to remove
+	 */
+	public void setListener( Listener< T > listener ) {
+		this.listener_ = listener;
+	}
+
+	/**
+	 * Set random seed of heuristic algorithms.
+	 *
+	 * @param seed Seed, or null if random
+	 */
+	public void setSeed( Long seed ) {
+		this.seed_ = seed;
+	}
+
+	/**
+	 * Set storage of dynamic programming tables.
+	 *
+	 * @param storage Storage
+	 */
+	public void setStorage( Storage storage ) {
+		this.storage_ = storage;
+	}
+
+	/**
+	 * Set memory cap of transposition tables of memoized searches. Once the
+	 * table is full, old states are evicted and may be searched again.
+	 *
+	 * @param tableMemory Maximum bytes, or 0 if automatic
+	 */
+	public void setTableMemory( long tableMemory ) {
+		this.tableMemory_ = tableMemory;
+	}
+
+	/**
+	 * Set timeout of each solving.
+	 *
+	 * @param timeout Timeout in milliseconds, or 0 if unlimited
+	 */
+	public void setTimeout( long timeout ) {
+		this.timeout_ = timeout;
+	}
+
+}
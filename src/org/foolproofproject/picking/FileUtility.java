@@ -24,6 +24,42 @@ import java.io.FileFilter;
 
 public class FileUtility {
 
+	/// Logical block size of ISO 9660 and UDF.
+	public static final long BLOCK_SIZE = 2048L;
+
+	/**
+	 * Get the space used on a disc, i.e. the total size rounded up to
+	 * blocks. Every file is rounded up on its own, and every directory
+	 * takes one block for its records.
+	 * @param file File or directory
+	 * @param blockSize Block size in bytes
+	 * @return Size in bytes, a multiple of blockSize.
+	 */
+	public static Long getAlignedSize( File file, long blockSize ) {
+		return FileUtility.getTotalBlocks( file, blockSize, null ) * blockSize;
+	}
+
+	/**
+	 * Get the amount of blocks used on a disc.
+	 * @param file File or directory
+	 * @param blockSize Block size in bytes
+	 * @param filter File filter, may be null
+	 * @return Amount of blocks.
+	 */
+	public static long getTotalBlocks( File file, long blockSize, FileFilter filter ) {
+		if( !file.isDirectory() ) {
+			return ( file.length() + blockSize - 1L ) / blockSize;
+		}
+		long sum = 1L;
+		File[] files = file.listFiles( filter );
+		if( files != null ) {
+			for( File f : files ) {
+				sum += FileUtility.getTotalBlocks( f, blockSize, filter );
+			}
+		}
+		return sum;
+	}
+
 	public static Long getTotalSize( File file ) {
 		return FileUtility.getTotalSize( file, null );
 	}
@@ -22,9 +22,14 @@ package org.foolproofproject.picking;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 
+import org.foolproofproject.BinPacking;
 import org.foolproofproject.Pack;
+import org.foolproofproject.PackSolver;
+import org.foolproofproject.PackSolvers;
+import org.foolproofproject.SolveOptions;
 
 /**
  * Algorithm performer.
@@ -35,6 +40,9 @@ public class Performer {
 	private final long limit_;
 	private HashMap< File, Long > table_;
 	private ArrayList< File > overflow_, items_;
+	private SolveOptions< File > options_;
+	private Pack.Picker< File > picker_;
+	private PackSolver solver_;
 
 	/**
 	 * Constructor.
@@ -42,22 +50,81 @@ public class Performer {
 	 * @param files All files
 	 */
 	public Performer( long limit, File[] files ) {
-		this.limit_ = limit;
+		this( limit, files, 1L );
+	}
+
+	/**
+	 * Constructor, measures files in blocks of the target file system.
+	 * The limit is rounded down to blocks, and every file is rounded up, so
+	 * all sizes are multiples of blockSize and solvers work in blocks.
+	 * @param limit Combination maximum size
+	 * @param files All files
+	 * @param blockSize Block size in bytes, 1 for raw sizes
+	 * @throws IllegalArgumentException if blockSize is less than 1
+	 */
+	public Performer( long limit, File[] files, long blockSize ) {
+		if( blockSize < 1L ) {
+			throw new IllegalArgumentException( "Invalid block size: " + blockSize );
+		}
+		this.limit_ = limit - limit % blockSize;
 		this.items_ = new ArrayList< File >();
 		this.table_ = new HashMap< File, Long >();
 		this.overflow_ = new ArrayList< File >();
+		this.options_ = new SolveOptions< File >();
+		this.picker_ = null;
+		this.solver_ = null;
 
 		for( File file : files ) {
-			this.put_( file, FileUtility.getTotalSize( file ) );
+			this.put_( file, ( blockSize > 1L ) ? FileUtility.getAlignedSize( file, blockSize ) : FileUtility.getTotalSize( file ) );
 		}
 	}
 
 	/**
 	 * Pick once.
+	 * Without a chosen solver, items are sorted at the first call, and later
+	 * calls reuse them.
 	 * @return Result.
 	 */
 	public Pack< File > call() {
-		return Pack.pick( this.limit_, this.table_ );
+		if( this.solver_ != null ) {
+			return this.solver_.solve( this.limit_, this.getItems_(), this.options_ );
+		}
+		if( this.picker_ == null ) {
+			this.picker_ = new Pack.Picker< File >( this.limit_, this.table_ );
+		}
+		return this.picker_.call( this.options_ );
+	}
+
+	/**
+	 * Plan all discs at once, minimizing the amount of discs.
+	 * The timeout of options bounds the whole planning, not each disc.
+	 * Overflowed items are not included.
+	 * @return Results, fullest first.
+	 */
+	public List< Pack< File > > planAll() {
+		return BinPacking.plan( this.limit_, this.getItems_(), this.options_ );
+	}
+
+	/**
+	 * Plan all discs at once, with the provably minimum amount of discs.
+	 * If the timeout of options is exceeded, the best plan found so far is
+	 * returned. Overflowed items are not included.
+	 * @return Results, fullest first.
+	 */
+	public List< Pack< File > > planOptimal() {
+		return BinPacking.binCompletion( this.limit_, this.getItems_(), this.options_ );
+	}
+
+	private HashMap< File, Long > getItems_() {
+		HashMap< File, Long > items = new HashMap< File, Long >();
+		for( File item : this.items_ ) {
+			items.put( item, this.table_.get( item ) );
+		}
+		return items;
+	}
+
+	public SolveOptions< File > getOptions() {
+		return this.options_;
 	}
 
 	public ArrayList< File > getOverflow() {
@@ -73,6 +140,31 @@ public class Performer {
 	public boolean noOverflow() {
 		return this.overflow_.isEmpty();
 	}
+
+	/**
+	 * Set solving options. The timeout bounds each {@link #call()}, and the
+	 * whole planning of {@link #planAll()}.
+	 * @param options Solving options
+	 */
+	public void setOptions( SolveOptions< File > options ) {
+		this.options_ = options;
+	}
+
+	/**
+	 * Choose the solver of each pick.
+	 * @param name Solver name, see {@link PackSolvers}, or null for automatic
+	 * @throws IllegalArgumentException if there is no such solver
+	 */
+	public void setSolver( String name ) {
+		if( name == null ) {
+			this.solver_ = null;
+			return;
+		}
+		this.solver_ = PackSolvers.get( name );
+		if( this.solver_ == null ) {
+			throw new IllegalArgumentException( "No such solver: " + name );
+		}
+	}
 	private void put_( File key, long value ) {
 		if( value < this.limit_ ) {
 			this.items_.add( key );
@@ -87,9 +179,14 @@ public class Performer {
 	 * @param keys Item keys
 	 */
 	public void remove( List< File > keys ) {
-		this.items_.removeAll( keys );
-		for( File key : keys ) {
-			this.table_.remove( key );
+		HashSet< File > set = new HashSet< File >( keys );
+		this.items_.removeAll( set );
+		this.table_.keySet().removeAll( set );
+		if( this.picker_ != null ) {
+			this.picker_.remove( set );
+			if( this.picker_.isEmpty() ) {
+				this.picker_.close();
+			}
 		}
 	}
 
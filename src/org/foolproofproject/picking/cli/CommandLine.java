@@ -24,6 +24,9 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.foolproofproject.Pack;
+import org.foolproofproject.PackSolver;
+import org.foolproofproject.PackSolvers;
+import org.foolproofproject.picking.FileUtility;
 import org.foolproofproject.picking.Performer;
 import org.foolproofproject.picking.UnitUtility;
 
@@ -42,7 +45,7 @@ public class CommandLine {
 	 * @param args arguments
 	 */
 	public static void parse( String[] args ) {
-		if( args.length < 1 || args.length > 2 ) {
+		if( args.length < 1 || args.length > 3 ) {
 			CommandLine.printUsage();
 			return;
 		}
@@ -70,19 +73,32 @@ public class CommandLine {
 			path = new File( "." );
 		}
 
-		CommandLine.perform( path.listFiles(), UnitUtility.extract( limit, eng ), eng );
+		String solver = null;
+		if( args.length > 2 ) {
+			if( PackSolvers.get( args[2] ) == null ) {
+				CommandLine.printUsage();
+				return;
+			}
+			solver = args[2];
+		}
+
+		CommandLine.perform( path.listFiles(), UnitUtility.extract( limit, eng ), eng, solver );
 	}
 
-	private static void perform( File[] files, long limit, int eng ) {
-		Performer p = new Performer( limit, files );
+	private static void perform( File[] files, long limit, int eng, String solver ) {
+		Performer p = new Performer( limit, files, FileUtility.BLOCK_SIZE );
 
-		while( !p.noItem() ) {
-			Pack< File > pair = p.call();
-			System.out.println( UnitUtility.toString( pair.getScore(), eng ) + ":" );
-			for( File item : pair.getItems() ) {
-				System.out.println( "\t" + item );
+		if( solver == null ) {
+			for( Pack< File > pair : p.planAll() ) {
+				CommandLine.print( pair, eng );
+			}
+		} else {
+			p.setSolver( solver );
+			while( !p.noItem() ) {
+				Pack< File > pair = p.call();
+				CommandLine.print( pair, eng );
+				p.remove( pair.getItems() );
 			}
-			p.remove( pair.getItems() );
 		}
 
 		if( !p.noOverflow() ) {
@@ -93,8 +109,20 @@ public class CommandLine {
 		}
 	}
 
+	private static void print( Pack< File > pair, int eng ) {
+		System.out.println( UnitUtility.toString( pair.getScore(), eng ) + ":" );
+		for( File item : pair.getItems() ) {
+			System.out.println( "\t" + item );
+		}
+	}
+
 	private static void printUsage() {
-		System.out.println( "Usage: <limit[(K|M|G)[B]]> <directory>" );
+		System.out.println( "Usage: <limit[(K|M|G)[B]]> <directory> [solver]" );
+		System.out.print( "Solvers:" );
+		for( PackSolver solver : PackSolvers.getAll() ) {
+			System.out.print( " " + solver.getName() );
+		}
+		System.out.println();
 	}
 
 }
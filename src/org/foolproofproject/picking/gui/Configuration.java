@@ -118,6 +118,8 @@ public class Configuration implements Serializable {
 		this.data_.put( "k3b_export_bound_unit", 2 );
 		this.data_.put( "debug", false );
 		this.data_.put( "hidden", false );
+		this.data_.put( "timeout", 0L );
+		this.data_.put( "block_size", 2048L );
 	}
 
 }
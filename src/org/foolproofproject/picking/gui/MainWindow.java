@@ -53,6 +53,7 @@ import javax.swing.KeyStroke;
 import javax.swing.filechooser.FileNameExtensionFilter;
 
 import org.foolproofproject.Pack;
+import org.foolproofproject.picking.FileUtility;
 import org.foolproofproject.picking.Performer;
 import org.foolproofproject.picking.Signal;
 import org.foolproofproject.picking.UnitUtility;
@@ -323,7 +324,15 @@ public class MainWindow extends JFrame {
 	}
 
 	public void perform() {
-		Performer p = new Performer( UnitUtility.extract( this.limit_.toLong(), this.unit_.getSelectedIndex() ), this.list_.getSelectedFiles() );
+		Long blockSize = ( Long )Configuration.get( "block_size" );
+		if( blockSize == null || blockSize < 1L ) {
+			blockSize = FileUtility.BLOCK_SIZE;
+		}
+		Performer p = new Performer( UnitUtility.extract( this.limit_.toLong(), this.unit_.getSelectedIndex() ), this.list_.getSelectedFiles(), blockSize );
+		Long timeout = ( Long )Configuration.get( "timeout" );
+		if( timeout != null ) {
+			p.getOptions().setTimeout( timeout * 1000L );
+		}
 
 		this.result_.openProgress( p.getTable() );
 
@@ -331,10 +340,8 @@ public class MainWindow extends JFrame {
 			this.result_.addOverflow( p.getOverflow() );
 		}
 
-		while( !p.noItem() ) {
-			Pack< File > r = p.call();
+		for( Pack< File > r : p.planAll() ) {
 			this.result_.addResult( r.getScore(), this.unit_.getSelectedIndex(), r.getItems() );
-			p.remove( r.getItems() );
 		}
 
 		this.result_.closeProgress();
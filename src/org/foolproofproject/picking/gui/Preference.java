@@ -36,6 +36,7 @@ import javax.swing.JDialog;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 
+import org.foolproofproject.BinPacking;
 import org.foolproofproject.picking.UnitUtility;
 
 /**
@@ -51,6 +52,8 @@ public class Preference extends JDialog {
 	private JCheckBox hidden_;
 	private NaturalField k3bLB_;
 	private JComboBox k3bUnit_;
+	private NaturalField timeout_;
+	private NaturalField blockSize_;
 
 	public Preference(MainWindow window) {
 		super(window);
@@ -84,6 +87,26 @@ public class Preference extends JDialog {
 		k3b.add(this.k3bUnit_);
 		k3b.add(new JLabel("results."));
 
+		JPanel solver = new JPanel();
+		pane.add(solver);
+		solver.setBorder(BorderFactory.createTitledBorder("Solver"));
+		solver.setLayout(new BoxLayout(solver, BoxLayout.X_AXIS));
+
+		solver.add(new JLabel("Stop planning after"));
+		this.timeout_ = new NaturalField(0);
+		solver.add(this.timeout_);
+		solver.add(new JLabel("second(s) in total, 0 for the default " + BinPacking.PLAN_MILLIS / 1000L + " s."));
+
+		JPanel media = new JPanel();
+		pane.add(media);
+		media.setBorder(BorderFactory.createTitledBorder("Media"));
+		media.setLayout(new BoxLayout(media, BoxLayout.X_AXIS));
+
+		media.add(new JLabel("Block size"));
+		this.blockSize_ = new NaturalField(2048);
+		media.add(this.blockSize_);
+		media.add(new JLabel("byte(s), 2048 for ISO 9660 and UDF, 1 for raw sizes."));
+
 		JPanel misc = new JPanel();
 		pane.add(misc);
 		misc.setLayout(new GridLayout(2, 1));
@@ -139,6 +162,10 @@ public class Preference extends JDialog {
 
 		this.k3bLB_.setText(Configuration.get("k3b_export_lower_bound").toString());
 		this.k3bUnit_.setSelectedIndex((Integer) Configuration.get("k3b_export_bound_unit"));
+		Object timeout = Configuration.get("timeout");
+		this.timeout_.setText((timeout == null) ? "0" : timeout.toString());
+		Object blockSize = Configuration.get("block_size");
+		this.blockSize_.setText((blockSize == null) ? "2048" : blockSize.toString());
 
 		this.setVisible(true);
 	}
@@ -150,6 +177,8 @@ public class Preference extends JDialog {
 		Configuration.set("hidden", false);
 		Configuration.set("k3b_export_lower_bound", this.k3bLB_.toLong());
 		Configuration.set("k3b_export_bound_unit", this.k3bUnit_.getSelectedIndex());
+		Configuration.set("timeout", this.timeout_.toLong());
+		Configuration.set("block_size", Math.max(1L, this.blockSize_.toLong()));
 	}
 
 }
@@ -0,0 +1,103 @@
+/*
+ * PicKing, a file picker.
+ * Copyright (C) 2009  Wei-Cheng Pan <legnaleurc@gmail.com>
+ *
+ * This file is part of PicKing.
+ *
+ * PicKing is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PicKing is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.foolproofproject;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class BinPackingTest {
+
+	private static HashMap< Integer, Long > table = new HashMap< Integer, Long >();
+	private static long limit = 0L;
+
+	private static HashMap< Integer, Long > generateTestCase( int size, long seed ) {
+		HashMap< Integer, Long > h = new HashMap< Integer, Long >();
+		for( int i = 0; i < size; ++i ) {
+			long tmp = ( long )Math.floor( ( 0.5 + Math.random() * 2.5 * seed ) );
+			h.put( i, tmp);
+		}
+		return h;
+	}
+
+	private static void verify( List< Pack< Integer > > packs ) {
+		HashSet< Integer > seen = new HashSet< Integer >();
+		for( Pack< Integer > p : packs ) {
+			Long sum = 0L;
+			for( int i : p.getItems() ) {
+				sum += table.get( i );
+				assertTrue( seen.add( i ) );
+			}
+			assertEquals( sum, p.getScore() );
+			assertTrue( sum <= limit );
+		}
+		assertEquals( table.size(), seen.size() );
+	}
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		int size = 200;
+		long seed = 1 + ( long )Math.floor( Math.random() * 100 );
+		table = generateTestCase( size, seed );
+		limit = 10 * seed;
+		System.out.printf( "(%s,%d)\n", table, limit );
+	}
+
+	@Test
+	public void testFitDecreasing() {
+		List< Pack< Integer > > ffd = BinPacking.firstFitDecreasing( limit, table );
+		verify( ffd );
+		List< Pack< Integer > > bfd = BinPacking.bestFitDecreasing( limit, table );
+		verify( bfd );
+		System.out.printf( "%d, %d\n", ffd.size(), bfd.size() );
+	}
+
+	@Test
+	public void testBinCompletion() {
+		SolveOptions< Integer > options = new SolveOptions< Integer >();
+		options.setTimeout( 1000L );
+		List< Pack< Integer > > plan = BinPacking.binCompletion( limit, table, options );
+		verify( plan );
+		assertTrue( plan.size() <= BinPacking.plan( limit, table ).size() );
+		System.out.println( plan.size() );
+	}
+
+	@Test
+	public void testPlan() {
+		List< Pack< Integer > > plan = BinPacking.plan( limit, table );
+		verify( plan );
+		assertTrue( plan.size() <= BinPacking.bestFitDecreasing( limit, table ).size() );
+		System.out.println( plan.size() );
+
+		// the budget bounds the whole planning
+		SolveOptions< Integer > options = new SolveOptions< Integer >();
+		options.setBudget( 1L );
+		plan = BinPacking.plan( limit, table, options );
+		verify( plan );
+		assertTrue( plan.size() <= BinPacking.bestFitDecreasing( limit, table ).size() );
+	}
+
+}
@@ -0,0 +1,70 @@
+/*
+ * PicKing, a file picker.
+ * Copyright (C) 2009  Wei-Cheng Pan <legnaleurc@gmail.com>
+ *
+ * This file is part of PicKing.
+ *
+ * PicKing is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PicKing is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.foolproofproject;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.HashSet;
+
+import org.junit.Test;
+
+public class PackSolversTest {
+
+	@Test
+	public void testGet() {
+		HashSet< String > names = new HashSet< String >();
+		for( PackSolver solver : PackSolvers.getAll() ) {
+			assertTrue( names.add( solver.getName() ) );
+			assertEquals( solver, PackSolvers.get( solver.getName() ) );
+		}
+		assertTrue( names.contains( "pick" ) );
+		assertTrue( names.contains( "depthFirstSearch" ) );
+		assertNull( PackSolvers.get( "nothing" ) );
+	}
+
+	@Test
+	public void testSolve() {
+		HashMap< Integer, Long > items = new HashMap< Integer, Long >();
+		for( int i = 0; i < 16; ++i ) {
+			items.put( i, ( long )( Math.random() * 1000 ) + 1L );
+		}
+		long limit = 3000L;
+		Long best = Pack.depthFirstSearch( limit, items ).getScore();
+
+		String[] names = { "pick", "portfolio", "meetInTheMiddle", "dynamicProgramming", "balancedDynamicProgramming", "memoizedSearch", "breadthFirstSearch", "parallelSearch", "approximate", "geneticAlgorithm", "parallelGeneticAlgorithm" };
+		for( String name : names ) {
+			PackSolver solver = PackSolvers.get( name );
+			Pack< Integer > p = solver.solve( limit, items, new SolveOptions< Integer >() );
+			Long sum = 0L;
+			for( Integer key : new HashSet< Integer >( p.getItems() ) ) {
+				sum += items.get( key );
+			}
+			assertEquals( sum, p.getScore() );
+			assertTrue( sum <= limit );
+			if( solver.isExact() ) {
+				assertEquals( best, p.getScore() );
+			}
+		}
+	}
+
+}
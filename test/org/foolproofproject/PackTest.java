@@ -20,10 +20,14 @@
 package org.foolproofproject;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -64,6 +68,20 @@ public class PackTest {
 		assertEquals( sum, bs.getScore() );
 	}
 
+	@Test
+	public void testBreadthFirstSearch() {
+		Pack< Integer > bfs = Pack.breadthFirstSearch( limit, table );
+		Collections.sort( bfs.getItems() );
+		System.out.println( bfs );
+
+		Long sum = 0L;
+		for( int i : bfs.getItems() ) {
+			sum += table.get( i );
+		}
+		assertEquals( sum, bfs.getScore() );
+		assertEquals( Pack.depthFirstSearch( limit, table ).getScore(), bfs.getScore() );
+	}
+
 	@Test
 	public void testDepthFirstSearch() {
 		Pack< Integer > dfs = Pack.depthFirstSearch( limit, table );
@@ -77,6 +95,145 @@ public class PackTest {
 		assertEquals( sum, dfs.getScore() );
 	}
 
+	@Test
+	public void testParallelSearch() {
+		Pack< Integer > ps = Pack.parallelSearch( limit, table, 4 );
+		Collections.sort( ps.getItems() );
+		System.out.println( ps );
+
+		Long sum = 0L;
+		for( int i : ps.getItems() ) {
+			sum += table.get( i );
+		}
+		assertEquals( sum, ps.getScore() );
+		assertEquals( Pack.depthFirstSearch( limit, table ).getScore(), ps.getScore() );
+	}
+
+	@Test
+	public void testMemoizedSearch() {
+		Pack< Integer > ms = Pack.memoizedSearch( limit, table );
+		Long sum = 0L;
+		for( int i : ms.getItems() ) {
+			sum += table.get( i );
+		}
+		assertEquals( sum, ms.getScore() );
+		assertEquals( Pack.depthFirstSearch( limit, table ).getScore(), ms.getScore() );
+
+		// repeated sizes never fill the limit, so every state is searched
+		long[] sizes = { 700000000L, 1400000000L, 4700000000L, 8500000000L };
+		HashMap< Integer, Long > items = new HashMap< Integer, Long >();
+		for( int i = 0; i < 300; ++i ) {
+			items.put( i, sizes[i % sizes.length] );
+		}
+		ms = Pack.memoizedSearch( 23456789011L, items );
+		assertEquals( Pack.dynamicProgramming( 23456789011L, items ).getScore(), ms.getScore() );
+
+		// a tiny table keeps evicting, but never loses the answer, even sizes
+		// never fill an odd limit either
+		SolveOptions< Integer > options = new SolveOptions< Integer >();
+		options.setTableMemory( 1L );
+		HashMap< Integer, Long > few = generateTestCase( 24, 1000L );
+		for( int i = 0; i < 24; ++i ) {
+			few.put( i, few.get( i ) * 2L );
+		}
+		ms = Pack.memoizedSearch( 12001L, few, options );
+		assertEquals( Pack.depthFirstSearch( 12001L, few ).getScore(), ms.getScore() );
+	}
+
+	@Test
+	public void testDynamicProgramming() {
+		Pack< Integer > dp = Pack.dynamicProgramming( limit, table );
+		Collections.sort( dp.getItems() );
+		System.out.println( dp );
+
+		Long sum = 0L;
+		for( int i : dp.getItems() ) {
+			sum += table.get( i );
+		}
+		assertEquals( sum, dp.getScore() );
+		assertEquals( Pack.depthFirstSearch( limit, table ).getScore(), dp.getScore() );
+	}
+
+	@Test
+	public void testBalancedDynamicProgramming() {
+		Pack< Integer > balsub = Pack.balancedDynamicProgramming( limit, table );
+		Collections.sort( balsub.getItems() );
+		System.out.println( balsub );
+
+		Long sum = 0L;
+		for( int i : balsub.getItems() ) {
+			sum += table.get( i );
+		}
+		assertEquals( sum, balsub.getScore() );
+		assertEquals( Pack.depthFirstSearch( limit, table ).getScore(), balsub.getScore() );
+	}
+
+	@Test
+	public void testStorage() {
+		Long expected = Pack.dynamicProgramming( limit, table ).getScore();
+		for( SolveOptions.Storage storage : SolveOptions.Storage.values() ) {
+			SolveOptions< Integer > options = new SolveOptions< Integer >();
+			options.setStorage( storage );
+			Pack< Integer > dp = Pack.dynamicProgramming( limit, table, options );
+
+			Long sum = 0L;
+			for( int i : dp.getItems() ) {
+				sum += table.get( i );
+			}
+			assertEquals( sum, dp.getScore() );
+			assertEquals( expected, dp.getScore() );
+		}
+
+		// buffers out of the heap are reused, released, and allocated again
+		HashMap< Integer, Long > many = new HashMap< Integer, Long >();
+		for( int i = 0; i < 200; ++i ) {
+			many.put( i, ( long )( Math.random() * 1e6 ) + 1L );
+		}
+		for( SolveOptions.Storage storage : new SolveOptions.Storage[] { SolveOptions.Storage.DIRECT, SolveOptions.Storage.MAPPED } ) {
+			SolveOptions< Integer > options = new SolveOptions< Integer >();
+			options.setStorage( storage );
+			Pack.Picker< Integer > picker = new Pack.Picker< Integer >( 10000000L, many );
+			for( int i = 0; i < 3; ++i ) {
+				assertEquals( Pack.dynamicProgramming( 10000000L, many ).getScore(), picker.call( options ).getScore() );
+				picker.close();
+				assertEquals( Pack.dynamicProgramming( 10000000L, many ).getScore(), picker.call( options ).getScore() );
+			}
+			picker.close();
+		}
+	}
+
+	@Test
+	public void testMeetInTheMiddle() {
+		Pack< Integer > mitm = Pack.meetInTheMiddle( limit, table );
+		Collections.sort( mitm.getItems() );
+		System.out.println( mitm );
+
+		Long sum = 0L;
+		for( int i : mitm.getItems() ) {
+			sum += table.get( i );
+		}
+		assertEquals( sum, mitm.getScore() );
+		assertEquals( Pack.depthFirstSearch( limit, table ).getScore(), mitm.getScore() );
+	}
+
+	@Test
+	public void testApproximate() {
+		Long best = Pack.depthFirstSearch( limit, table ).getScore();
+		double[] epsilons = { 0.5, 0.1, 0.01 };
+		for( double epsilon : epsilons ) {
+			Pack< Integer > fptas = Pack.approximate( limit, table, epsilon );
+			System.out.println( fptas );
+
+			Long sum = 0L;
+			for( int i : fptas.getItems() ) {
+				sum += table.get( i );
+			}
+			assertEquals( sum, fptas.getScore() );
+			assertTrue( sum <= limit );
+			assertTrue( sum >= ( 1.0 - epsilon ) * best );
+		}
+	}
+
 	@Test
 	public void testGeneticAlgorithm() {
 		long[] result = new long[10];
@@ -92,4 +249,170 @@ public class PackTest {
 		System.out.println( sin );
 	}
 
+	@Test
+	public void testGeneticAlgorithmSeed() {
+		Pack< Integer > a = Pack.geneticAlgorithm( limit, table, 42L );
+		Pack< Integer > b = Pack.geneticAlgorithm( limit, table, 42L );
+		assertEquals( a.getItems(), b.getItems() );
+
+		a = Pack.parallelGeneticAlgorithm( limit, table, 4, 42L );
+		b = Pack.parallelGeneticAlgorithm( limit, table, 4, 42L );
+		assertEquals( a.getItems(), b.getItems() );
+	}
+
+	@Test
+	public void testPortfolio() {
+		Pack< Integer > portfolio = Pack.portfolio( limit, table );
+		Collections.sort( portfolio.getItems() );
+		System.out.println( portfolio );
+
+		Long sum = 0L;
+		for( int i : portfolio.getItems() ) {
+			sum += table.get( i );
+		}
+		assertEquals( sum, portfolio.getScore() );
+		assertEquals( Pack.depthFirstSearch( limit, table ).getScore(), portfolio.getScore() );
+	}
+
+	@Test
+	public void testRefine() {
+		Pack< Integer > ga = Pack.geneticAlgorithm( limit, table, 1L );
+		Pack< Integer > ls = Pack.refine( limit, table, ga );
+		System.out.println( ls );
+
+		Long sum = 0L;
+		for( int i : new HashSet< Integer >( ls.getItems() ) ) {
+			sum += table.get( i );
+		}
+		assertEquals( ls.getItems().size(), new HashSet< Integer >( ls.getItems() ).size() );
+		assertEquals( sum, ls.getScore() );
+		assertTrue( sum <= limit );
+		assertTrue( ls.getScore() >= ga.getScore() );
+	}
+
+	@Test
+	public void testParallelGeneticAlgorithm() {
+		Pack< Integer > ga = Pack.parallelGeneticAlgorithm( limit, table, 4 );
+		Collections.sort( ga.getItems() );
+		System.out.println( ga );
+
+		Long sum = 0L;
+		for( int i : ga.getItems() ) {
+			sum += table.get( i );
+		}
+		assertEquals( sum, ga.getScore() );
+	}
+
+	@Test
+	public void testEqualValues() {
+		HashMap< Integer, Long > items = new HashMap< Integer, Long >();
+		long[] sizes = { 700L, 1100L, 1300L };
+		for( int i = 0; i < 300; ++i ) {
+			items.put( i, sizes[i % sizes.length] );
+		}
+		long limit = 123457L;
+
+		Pack< Integer > dfs = Pack.depthFirstSearch( limit, items );
+		assertEquals( Pack.dynamicProgramming( limit, items ).getScore(), dfs.getScore() );
+		assertEquals( Pack.meetInTheMiddle( limit, items ).getScore(), dfs.getScore() );
+		Long sum = 0L;
+		for( Integer key : new HashSet< Integer >( dfs.getItems() ) ) {
+			sum += items.get( key );
+		}
+		assertEquals( sum, dfs.getScore() );
+	}
+
+	@Test
+	public void testReduction() {
+		HashMap< Integer, Long > items = new HashMap< Integer, Long >();
+		items.put( 0, 150L );
+		items.put( 1, 71L );
+		items.put( 2, 60L );
+		items.put( 3, 50L );
+		items.put( 4, 29L );
+		Pack< Integer > pair = Pack.geneticAlgorithm( 100L, items, 42L );
+		assertEquals( Long.valueOf( 100L ), pair.getScore() );
+		assertEquals( 2, pair.getItems().size() );
+
+		items.remove( 0 );
+		Pack< Integer > all = Pack.depthFirstSearch( 300L, items );
+		assertEquals( Long.valueOf( 210L ), all.getScore() );
+		assertEquals( 4, all.getItems().size() );
+	}
+
+	@Test
+	public void testPick() {
+		Pack< Integer > exact = Pack.pick( limit, table );
+		assertEquals( Pack.depthFirstSearch( limit, table ).getScore(), exact.getScore() );
+
+		HashMap< Integer, Long > large = new HashMap< Integer, Long >();
+		for( int i = 0; i < 200; ++i ) {
+			large.put( i, ( long )( Math.random() * 1e12 ) + 1L );
+		}
+		Pack< Integer > p = Pack.pick( 12345678901234L, large );
+		Long sum = 0L;
+		for( Integer key : new HashSet< Integer >( p.getItems() ) ) {
+			sum += large.get( key );
+		}
+		assertEquals( sum, p.getScore() );
+		assertTrue( sum <= 12345678901234L );
+	}
+
+	@Test
+	public void testPicker() {
+		HashMap< Integer, Long > rest = generateTestCase( 100, limit / 16 + 1 );
+		Pack.Picker< Integer > picker = new Pack.Picker< Integer >( limit, rest );
+		// the picker never holds items over the limit
+		for( Iterator< Long > i = rest.values().iterator(); i.hasNext(); ) {
+			if( i.next() > limit ) {
+				i.remove();
+			}
+		}
+		assertEquals( rest.size(), picker.size() );
+		while( !picker.isEmpty() ) {
+			Pack< Integer > p = picker.call();
+			Long sum = 0L;
+			for( Integer key : p.getItems() ) {
+				assertTrue( rest.containsKey( key ) );
+				sum += rest.get( key );
+			}
+			assertEquals( sum, p.getScore() );
+			if( p.getItems().size() < rest.size() ) {
+				assertEquals( Pack.dynamicProgramming( limit, rest ).getScore(), p.getScore() );
+			}
+			picker.remove( p.getItems() );
+			rest.keySet().removeAll( p.getItems() );
+			assertEquals( rest.size(), picker.size() );
+		}
+	}
+
+	@Test
+	public void testSolveOptions() {
+		final ArrayList< Long > scores = new ArrayList< Long >();
+		SolveOptions< Integer > options = new SolveOptions< Integer >();
+		options.setBudget( 1L );
+		options.setListener( new SolveOptions.Listener< Integer >() {
+			@Override
+			public void improved( Pack< Integer > incumbent ) {
+				scores.add( incumbent.getScore() );
+			}
+		} );
+
+		Pack< Integer > ga = Pack.geneticAlgorithm( limit, table, options );
+		System.out.println( scores );
+		for( int i = 1; i < scores.size(); ++i ) {
+			assertTrue( scores.get( i - 1 ) < scores.get( i ) );
+		}
+		if( !scores.isEmpty() ) {
+			assertEquals( scores.get( scores.size() - 1 ), ga.getScore() );
+		}
+
+		scores.clear();
+		options.setBudget( 0L );
+		Pack< Integer > dfs = Pack.depthFirstSearch( limit, table, options );
+		if( !scores.isEmpty() ) {
+			assertEquals( scores.get( scores.size() - 1 ), dfs.getScore() );
+		}
+	}
+
 }
@@ -0,0 +1,70 @@
+/*
+ * PicKing, a file picker.
+ * Copyright (C) 2009  Wei-Cheng Pan <legnaleurc@gmail.com>
+ *
+ * This file is part of PicKing.
+ *
+ * PicKing is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PicKing is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.foolproofproject;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Compares {@link ShiftOr} kernels on a large bitset. To measure the SIMD
+ * kernel, compile the <code>vector</code> source root into the class path,
+ * and run it with <code>--add-modules jdk.incubator.vector</code>, e.g.
+ * <code>java --add-modules jdk.incubator.vector org.foolproofproject.ShiftOrBenchmark [capacity]</code>.
+ */
+public class ShiftOrBenchmark {
+
+	private static final int ROUNDS = 64;
+
+	public static void main( String[] args ) {
+		final int capacity = ( args.length > 0 ) ? Integer.parseInt( args[0] ) : 1 << 28;
+		final long[] bits = new long[( capacity >>> 6 ) + 1];
+		final int[] shifts = new int[ShiftOrBenchmark.ROUNDS];
+		Random random = new Random( 0L );
+		for( int i = 0; i < shifts.length; ++i ) {
+			shifts[i] = 1 + random.nextInt( capacity / 1024 );
+		}
+
+		ShiftOr[] kernels = { new ShiftOr(), ShiftOr.get() };
+		double[] nanos = new double[kernels.length];
+		for( int pass = 0; pass < 3; ++pass ) {
+			for( int i = 0; i < kernels.length; ++i ) {
+				nanos[i] = ShiftOrBenchmark.measure( kernels[i], bits, shifts, capacity );
+			}
+		}
+		for( int i = 0; i < kernels.length; ++i ) {
+			System.out.printf( "%-20s %8.3f ns/word%n", kernels[i].getName(), nanos[i] / bits.length );
+		}
+		System.out.printf( "speedup %.2fx%n", nanos[0] / nanos[1] );
+	}
+
+	/**
+	 * Get nanoseconds per round, starting from the same bitset every time.
+	 */
+	private static double measure( ShiftOr kernel, long[] bits, int[] shifts, int capacity ) {
+		Arrays.fill( bits, 0L );
+		bits[0] = 1L;
+		long begin = System.nanoTime();
+		for( int shift : shifts ) {
+			kernel.apply( bits, shift, capacity );
+		}
+		return ( double )( System.nanoTime() - begin ) / shifts.length;
+	}
+
+}
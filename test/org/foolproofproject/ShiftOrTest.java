@@ -0,0 +1,54 @@
+/*
+ * PicKing, a file picker.
+ * Copyright (C) 2009  Wei-Cheng Pan <legnaleurc@gmail.com>
+ *
+ * This file is part of PicKing.
+ *
+ * PicKing is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PicKing is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.foolproofproject;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ShiftOrTest {
+
+	@Test
+	public void testApply() {
+		ShiftOr scalar = new ShiftOr();
+		ShiftOr kernel = ShiftOr.get();
+		System.out.println( kernel.getName() );
+
+		Random random = new Random();
+		for( int i = 0; i < 1000; ++i ) {
+			int capacity = random.nextInt( 4096 );
+			int shift = random.nextInt( capacity + 2 );
+			long[] expected = new long[( capacity >>> 6 ) + 1];
+			for( int k = 0; k < expected.length; ++k ) {
+				expected[k] = random.nextLong() & random.nextLong();
+			}
+			expected[expected.length - 1] &= -1L >>> ( 63 - ( capacity & 63 ) );
+			long[] actual = expected.clone();
+
+			scalar.apply( expected, shift, capacity );
+			kernel.apply( actual, shift, capacity );
+			assertTrue( Arrays.equals( expected, actual ) );
+		}
+	}
+
+}
@@ -0,0 +1,46 @@
+/*
+ * PicKing, a file picker.
+ * Copyright (C) 2009  Wei-Cheng Pan <legnaleurc@gmail.com>
+ *
+ * This file is part of PicKing.
+ *
+ * PicKing is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PicKing is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.foolproofproject.picking;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.junit.Test;
+
+public class PerformerTest {
+
+	@Test
+	public void testBlockSize() {
+		Performer p = new Performer( 4096L, new File[0], 1024L );
+		assertTrue( p.noItem() );
+	}
+
+	@Test( expected = IllegalArgumentException.class )
+	public void testZeroBlockSize() {
+		new Performer( 4096L, new File[0], 0L );
+	}
+
+	@Test( expected = IllegalArgumentException.class )
+	public void testNegativeBlockSize() {
+		new Performer( 4096L, new File[0], -512L );
+	}
+
+}
@@ -0,0 +1,81 @@
+/*
+ * PicKing, a file picker.
+ * Copyright (C) 2009  Wei-Cheng Pan <legnaleurc@gmail.com>
+ *
+ * This file is part of PicKing.
+ *
+ * PicKing is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * PicKing is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.foolproofproject;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * <p>SIMD kernel of bitset dynamic programming by the Vector API.</p>
+ * <p>Words are processed from the top, a vector of words at a time. All
+ * source words of a vector are below its own words or in it, and they are
+ * loaded before it is stored, so every word reads the old bitset as the
+ * scalar kernel does.</p>
+ * Loaded by {@link ShiftOr#get}, for internal usage only.
+ *
+ * @author Wei-Cheng Pan
+ */
+class VectorShiftOr extends ShiftOr {
+
+	private static final VectorSpecies< Long > SPECIES = LongVector.SPECIES_PREFERRED;
+
+	/**
+	 * Constructor.
+	 *
+	 * @throws UnsupportedOperationException if vectors have only one lane
+	 */
+	public VectorShiftOr() {
+		if( VectorShiftOr.SPECIES.length() < 2 ) {
+			throw new UnsupportedOperationException( "No SIMD support" );
+		}
+	}
+
+	@Override
+	public void apply( long[] bits, int shift, int capacity ) {
+		final int ws = shift >>> 6;
+		final int bs = shift & 63;
+		final int top = capacity >>> 6;
+		final int lanes = VectorShiftOr.SPECIES.length();
+		if( top < ws ) {
+			return;
+		}
+		// the top word is masked by capacity
+		this.apply( bits, shift, capacity, top, top );
+		int k = top - 1;
+		// every lane needs the word below its source
+		for( ; k - lanes + 1 > ws; k -= lanes ) {
+			final int base = k - lanes + 1;
+			LongVector src = LongVector.fromArray( VectorShiftOr.SPECIES, bits, base - ws );
+			if( bs != 0 ) {
+				LongVector low = LongVector.fromArray( VectorShiftOr.SPECIES, bits, base - ws - 1 );
+				src = src.lanewise( VectorOperators.LSHL, bs ).or( low.lanewise( VectorOperators.LSHR, 64 - bs ) );
+			}
+			LongVector.fromArray( VectorShiftOr.SPECIES, bits, base ).or( src ).intoArray( bits, base );
+		}
+		this.apply( bits, shift, capacity, k, ws );
+	}
+
+	@Override
+	public String getName() {
+		return "vector " + VectorShiftOr.SPECIES.vectorBitSize() + " bits";
+	}
+
+}